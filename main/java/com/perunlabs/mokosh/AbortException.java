@@ -4,6 +4,8 @@ package com.perunlabs.mokosh;
  * Unchecked replacement for {@link InterruptedException}
  */
 public class AbortException extends RuntimeException {
+  private static final AbortException aborted = new AbortException("aborted", null, false, false);
+
   public AbortException() {}
 
   public AbortException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
@@ -22,6 +24,13 @@ public class AbortException extends RuntimeException {
     super(cause);
   }
 
+  /**
+   * @return preallocated instance without stack trace, cheap to throw in hot paths
+   */
+  public static AbortException aborted() {
+    return aborted;
+  }
+
   public static void abortIfInterrupted() {
     if (Thread.interrupted()) {
       throw new AbortException();
@@ -3,19 +3,57 @@ package com.perunlabs.mokosh;
 import static java.util.Arrays.asList;
 
 import com.perunlabs.mokosh.iterating.Replicator;
+import com.perunlabs.mokosh.running.Completing;
+import com.perunlabs.mokosh.running.Admitting;
+import com.perunlabs.mokosh.running.Cancellation;
 import com.perunlabs.mokosh.running.Entangling;
+import com.perunlabs.mokosh.running.RunningRegistry;
+import com.perunlabs.mokosh.running.RunningScope;
 import com.perunlabs.mokosh.running.Supplying;
 import com.perunlabs.mokosh.streaming.Processing;
 
 class Build {
   public static Object run = asList(
       Supplying.class,
-      Entangling.class);
+      Entangling.class,
+      Completing.class,
+      RunningScope.class,
+      Cancellation.class,
+      RunningRegistry.class,
+      Admitting.class);
 
   public static Object iterating = asList(
       Replicator.class,
+      com.perunlabs.mokosh.iterating.Broadcasting.class,
       com.perunlabs.mokosh.iterating.Working.class,
       com.perunlabs.mokosh.iterating.Buffering.class,
+      com.perunlabs.mokosh.iterating.AdaptiveBuffering.class,
+      com.perunlabs.mokosh.iterating.WeighingBuffering.class,
+      com.perunlabs.mokosh.iterating.Budget.class,
+      com.perunlabs.mokosh.iterating.SpillingBuffering.class,
+      com.perunlabs.mokosh.iterating.Codec.class,
+      com.perunlabs.mokosh.iterating.OffHeapBuffering.class,
+      com.perunlabs.mokosh.iterating.RingBuffering.class,
+      com.perunlabs.mokosh.iterating.Mapping.class,
+      com.perunlabs.mokosh.iterating.UnorderedMapping.class,
+      com.perunlabs.mokosh.iterating.Merging.class,
+      com.perunlabs.mokosh.iterating.Partitioning.class,
+      com.perunlabs.mokosh.iterating.Partitioner.class,
+      com.perunlabs.mokosh.iterating.IntIterating.class,
+      com.perunlabs.mokosh.iterating.IntWorking.class,
+      com.perunlabs.mokosh.iterating.IntBuffering.class,
+      com.perunlabs.mokosh.iterating.IntReplicator.class,
+      com.perunlabs.mokosh.iterating.LongIterating.class,
+      com.perunlabs.mokosh.iterating.LongWorking.class,
+      com.perunlabs.mokosh.iterating.LongBuffering.class,
+      com.perunlabs.mokosh.iterating.LongReplicator.class,
+      com.perunlabs.mokosh.iterating.DoubleIterating.class,
+      com.perunlabs.mokosh.iterating.DoubleWorking.class,
+      com.perunlabs.mokosh.iterating.DoubleBuffering.class,
+      com.perunlabs.mokosh.iterating.DoubleReplicator.class,
+      com.perunlabs.mokosh.iterating.Flow.class,
+      com.perunlabs.mokosh.iterating.Publishing.class,
+      com.perunlabs.mokosh.iterating.Subscribing.class,
       com.perunlabs.mokosh.iterating.Delegating.class);
 
   public static Object streaming = asList(
@@ -0,0 +1,19 @@
+package com.perunlabs.mokosh.common;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.perunlabs.mokosh.MokoshException;
+
+public class Beans {
+  public static void registerMBean(Object bean, String type, String name) {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(
+          "com.perunlabs.mokosh:type=" + type + ",name=" + ObjectName.quote(name)));
+    } catch (JMException e) {
+      throw new MokoshException(e);
+    }
+  }
+}
@@ -2,6 +2,8 @@ package com.perunlabs.mokosh.common;
 
 import java.util.function.Supplier;
 
+import com.perunlabs.mokosh.AbortException;
+
 public class Lambdas {
   public static Supplier<Void> asSupplier(Runnable runnable) {
     return () -> {
@@ -10,6 +12,17 @@ public class Lambdas {
     };
   }
 
+  public static <T> Supplier<T> evaluate(Supplier<T> supplier) {
+    try {
+      T returned = supplier.get();
+      return () -> returned;
+    } catch (RuntimeException | Error e) {
+      return () -> {
+        throw e;
+      };
+    }
+  }
+
   public static boolean failed(Supplier<?> supplier) {
     try {
       supplier.get();
@@ -18,4 +31,13 @@ public class Lambdas {
     }
     return false;
   }
+
+  public static boolean aborted(Supplier<?> supplier) {
+    try {
+      supplier.get();
+    } catch (AbortException e) {
+      return true;
+    } catch (RuntimeException | Error e) {}
+    return false;
+  }
 }
@@ -1,6 +1,6 @@
 package com.perunlabs.mokosh.common;
 
-import static com.perunlabs.mokosh.AbortException.abortIfInterrupted;
+import static com.perunlabs.mokosh.running.Cancellation.abortIfCancelled;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -8,10 +8,11 @@ import java.io.OutputStream;
 
 public class Streams {
   public static void pump(InputStream input, OutputStream output) throws IOException {
-    int oneByte;
-    while ((oneByte = input.read()) != -1) {
-      output.write(oneByte);
-      abortIfInterrupted();
+    byte[] buffer = new byte[8192];
+    int count;
+    while ((count = input.read(buffer)) != -1) {
+      output.write(buffer, 0, count);
+      abortIfCancelled();
     }
     output.flush();
   }
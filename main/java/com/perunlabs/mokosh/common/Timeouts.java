@@ -0,0 +1,41 @@
+package com.perunlabs.mokosh.common;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+public class Timeouts {
+  private static volatile ScheduledExecutorService scheduler;
+
+  public static long deadline(Duration timeout) {
+    return System.nanoTime() + timeout.toNanos();
+  }
+
+  public static Duration remaining(long deadline) {
+    return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+  }
+
+  public static ScheduledFuture<?> schedule(Duration delay, Runnable task) {
+    return scheduler().schedule(task, delay.toNanos(), NANOSECONDS);
+  }
+
+  private static ScheduledExecutorService scheduler() {
+    if (scheduler == null) {
+      synchronized (Timeouts.class) {
+        if (scheduler == null) {
+          ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "mokosh-timeouts");
+            thread.setDaemon(true);
+            return thread;
+          });
+          executor.setRemoveOnCancelPolicy(true);
+          scheduler = executor;
+        }
+      }
+    }
+    return scheduler;
+  }
+}
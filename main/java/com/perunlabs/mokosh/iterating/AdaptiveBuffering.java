@@ -0,0 +1,302 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.iterating.Draining.drain;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.common.Beans;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Buffering that chooses its own limit between minLimit and maxLimit. It starts with minLimit.
+ * After every limit elements consumed, limit is doubled if producer was blocked on full buffer and
+ * consumer was starved on empty one, because they take turns instead of working in parallel. Limit
+ * is halved if only producer was blocked, because consumer is bottleneck and extra elements only
+ * take memory.
+ */
+public class AdaptiveBuffering<E> implements Iterating<E>, AdaptiveBufferingMXBean {
+  private final int minLimit;
+  private final int maxLimit;
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+
+  private final Running<Void> iterating;
+  private final List<E> queue = new LinkedList<>();
+  private boolean closed;
+  private int limit;
+  private int consumed;
+  private long resizes;
+  private long producerBlocked, consumerStarved;
+  private long producerBlockedTotal, consumerStarvedTotal;
+  private long producerBlockedSince, consumerStarvedSince;
+  private boolean producerBlocking, consumerStarving;
+
+  private AdaptiveBuffering(int minLimit, int maxLimit, Iterator<E> iterator) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = minLimit;
+    iterating = supplying(this::toString, () -> {
+      List<E> batch = new ArrayList<>();
+      lock.lock();
+      try {
+        while (true) {
+          awaitSpace();
+          int space = limit - queue.size();
+          lock.unlock();
+          try {
+            if (drain(iterator, batch, space) == 0) {
+              break;
+            }
+          } finally {
+            lock.lock();
+          }
+          queue.addAll(batch);
+          batch.clear();
+          untilChange.signalAll();
+        }
+        while (queue.size() > 0) {
+          await(untilChange);
+        }
+      } finally {
+        lock.unlock();
+      }
+    });
+    iterating.onComplete(result -> {
+      lock.lock();
+      try {
+        closed = true;
+        untilChange.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    });
+  }
+
+  public static <E> AdaptiveBuffering<E> adaptiveBuffering(int minLimit, int maxLimit,
+      Iterator<E> iterator) {
+    check(minLimit > 0);
+    check(maxLimit >= minLimit);
+    check(iterator != null);
+    return new AdaptiveBuffering<E>(minLimit, maxLimit, iterator) {
+      public String toString() {
+        return format("adaptiveBuffering(%s, %s, %s)", minLimit, maxLimit, iterator);
+      }
+    };
+  }
+
+  /**
+   * Registers this buffering in platform MBean server as
+   * {@code com.perunlabs.mokosh:type=AdaptiveBuffering,name=<name>}.
+   */
+  public AdaptiveBuffering<E> registerMBean(String name) {
+    Beans.registerMBean(this, "AdaptiveBuffering", name);
+    return this;
+  }
+
+  public Supplier<Void> await() {
+    return iterating.await();
+  }
+
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return iterating.await(timeout);
+  }
+
+  public Running<Void> abort() {
+    return iterating.abort();
+  }
+
+  public boolean isRunning() {
+    return iterating.isRunning();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    iterating.onComplete(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    lock.lock();
+    try {
+      return awaitAvailable();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public E next() {
+    lock.lock();
+    try {
+      check(awaitAvailable());
+      E next = queue.remove(0);
+      consumed(1);
+      return next;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int drainTo(Collection<? super E> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        return 0;
+      }
+      int count = Math.min(max, queue.size());
+      for (int i = 0; i < count; i++) {
+        collection.add(queue.remove(0));
+      }
+      consumed(count);
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void consumed(int count) {
+    consumed += count;
+    if (consumed >= limit) {
+      measure();
+      int adapted = producerBlocked > 0 && consumerStarved > 0
+          ? Math.min(maxLimit, 2 * limit)
+          : producerBlocked > 0
+              ? Math.max(minLimit, limit / 2)
+              : limit;
+      if (adapted != limit) {
+        limit = adapted;
+        resizes++;
+      }
+      consumed = 0;
+      producerBlocked = 0;
+      consumerStarved = 0;
+    }
+    untilChange.signalAll();
+  }
+
+  private void awaitSpace() {
+    if (queue.size() >= limit) {
+      producerBlocking = true;
+      producerBlockedSince = System.nanoTime();
+      try {
+        while (queue.size() >= limit) {
+          await(untilChange);
+        }
+      } finally {
+        measure();
+        producerBlocking = false;
+      }
+    }
+  }
+
+  private boolean awaitAvailable() {
+    if (queue.isEmpty() && !closed) {
+      consumerStarving = true;
+      consumerStarvedSince = System.nanoTime();
+      try {
+        while (queue.isEmpty() && !closed) {
+          await(untilChange);
+        }
+      } finally {
+        measure();
+        consumerStarving = false;
+      }
+    }
+    return !queue.isEmpty();
+  }
+
+  /**
+   * Adds time of waits in progress, so limit can be adapted before they end.
+   */
+  private void measure() {
+    long now = System.nanoTime();
+    if (producerBlocking) {
+      producerBlocked += now - producerBlockedSince;
+      producerBlockedTotal += now - producerBlockedSince;
+      producerBlockedSince = now;
+    }
+    if (consumerStarving) {
+      consumerStarved += now - consumerStarvedSince;
+      consumerStarvedTotal += now - consumerStarvedSince;
+      consumerStarvedSince = now;
+    }
+  }
+
+  private void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public int getLimit() {
+    lock.lock();
+    try {
+      return limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getBuffered() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getResizes() {
+    lock.lock();
+    try {
+      return resizes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getProducerBlockedNanos() {
+    lock.lock();
+    try {
+      measure();
+      return producerBlockedTotal;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getConsumerStarvedNanos() {
+    lock.lock();
+    try {
+      measure();
+      return consumerStarvedTotal;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
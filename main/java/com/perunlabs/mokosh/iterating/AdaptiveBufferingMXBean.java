@@ -0,0 +1,17 @@
+package com.perunlabs.mokosh.iterating;
+
+public interface AdaptiveBufferingMXBean {
+  int getMinLimit();
+
+  int getMaxLimit();
+
+  int getLimit();
+
+  int getBuffered();
+
+  long getResizes();
+
+  long getProducerBlockedNanos();
+
+  long getConsumerStarvedNanos();
+}
@@ -0,0 +1,214 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.common.Collections.add;
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.perunlabs.mokosh.AbortException;
+
+/**
+ * Broadcasts elements to iterators through shared ring. Each iterator has its own cursor and may
+ * run up to lag elements ahead of slowest one. Iterator that reaches end of ring pulls next element
+ * from source. Elements already in ring are read without locking. Ring slot is reused once every
+ * cursor passed it.
+ *
+ * Closed {@link Subscription} stops gating other iterators.
+ */
+public class Broadcasting<E> implements Iterable<E> {
+  private final Iterator<E> source;
+  private final Object[] ring;
+  private final boolean dynamic;
+  private final List<Replica> unclaimed = new LinkedList<>();
+
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilSlowestMoves = lock.newCondition();
+  private volatile List<Replica> replicas = new ArrayList<>();
+  private volatile int awaitingSlowest;
+  private volatile long published;
+  private volatile boolean exhausted;
+
+  private Broadcasting(int count, int lag, Iterator<E> source) {
+    this.source = source;
+    this.ring = new Object[lag];
+    this.dynamic = count == 0;
+    for (int i = 0; i < count; i++) {
+      Replica replica = new Replica(0);
+      unclaimed.add(replica);
+      replicas.add(replica);
+    }
+  }
+
+  /**
+   * Elements are not pulled past lag before all count iterators are requested.
+   */
+  public static <E> Iterable<E> broadcast(int count, int lag, Iterator<E> iterator) {
+    check(count > 0);
+    check(lag > 0);
+    check(iterator != null);
+    return new Broadcasting<E>(count, lag, iterator) {
+      public String toString() {
+        return format("broadcast(%s, %s, %s)", count, lag, iterator);
+      }
+    };
+  }
+
+  /**
+   * Broadcasts to iterators subscribed at any time. Each of them starts at element that was not yet
+   * pulled from source.
+   */
+  public static <E> Broadcasting<E> broadcast(int lag, Iterator<E> iterator) {
+    check(lag > 0);
+    check(iterator != null);
+    return new Broadcasting<E>(0, lag, iterator) {
+      public String toString() {
+        return format("broadcast(%s, %s)", lag, iterator);
+      }
+    };
+  }
+
+  /**
+   * Does not block.
+   */
+  public Iterator<E> iterator() {
+    return subscribe();
+  }
+
+  public Subscription<E> subscribe() {
+    lock.lock();
+    try {
+      if (dynamic) {
+        Replica replica = new Replica(published);
+        replicas = add(replica, replicas);
+        return replica;
+      } else {
+        check(!unclaimed.isEmpty());
+        return unclaimed.remove(0);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void unsubscribe(Replica replica) {
+    lock.lock();
+    try {
+      List<Replica> remaining = new ArrayList<>(replicas);
+      remaining.remove(replica);
+      replicas = remaining;
+      untilSlowestMoves.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean awaitNext(Replica replica) {
+    lockInterruptibly(lock);
+    try {
+      while (true) {
+        if (replica.closed) {
+          return false;
+        } else if (replica.cursor < published) {
+          return true;
+        } else if (exhausted) {
+          return false;
+        } else if (!source.hasNext()) {
+          exhausted = true;
+        } else if (published - slowest() < ring.length) {
+          ring[index(published)] = source.next();
+          published++;
+        } else {
+          awaitingSlowest++;
+          try {
+            if (published - slowest() == ring.length) {
+              await(untilSlowestMoves);
+            }
+          } finally {
+            awaitingSlowest--;
+          }
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private long slowest() {
+    long slowest = published;
+    for (Replica replica : replicas) {
+      slowest = Math.min(slowest, replica.cursor);
+    }
+    return slowest;
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence % ring.length);
+  }
+
+  private class Replica implements Subscription<E> {
+    private volatile long cursor;
+    private volatile boolean closed;
+
+    private Replica(long cursor) {
+      this.cursor = cursor;
+    }
+
+    public boolean hasNext() {
+      return !closed && (cursor < published || awaitNext(this));
+    }
+
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      long position = cursor;
+      @SuppressWarnings("unchecked")
+      E next = (E) ring[index(position)];
+      cursor = position + 1;
+      if (awaitingSlowest > 0) {
+        lock.lock();
+        try {
+          untilSlowestMoves.signalAll();
+        } finally {
+          lock.unlock();
+        }
+      }
+      return next;
+    }
+
+    public void close() {
+      if (!closed) {
+        closed = true;
+        unsubscribe(this);
+      }
+    }
+
+    public String toString() {
+      return format("%s.iterator()", Broadcasting.this);
+    }
+  }
+
+  private static void lockInterruptibly(Lock lock) {
+    try {
+      lock.lockInterruptibly();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+
+  private static void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
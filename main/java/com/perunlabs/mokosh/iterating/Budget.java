@@ -0,0 +1,94 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static java.lang.String.format;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.common.Beans;
+
+/**
+ * Weight, usually estimated bytes, shared by buffers. Acquiring waits until enough weight is
+ * released. Weight over limit is granted only when nothing else is acquired, so single heavy
+ * element cannot block forever. Static {@link #getDefault()} is unlimited until replaced with
+ * {@link #setDefault(Budget)}, which bounds every buffer that is not given its own budget.
+ * Unlimited budget does not account weight, so buffers sharing it do not contend on its lock.
+ */
+public class Budget implements BudgetMXBean {
+  private static volatile Budget defaultBudget = unlimited();
+
+  private final long limit;
+  private long used;
+
+  private Budget(long limit) {
+    this.limit = limit;
+  }
+
+  public static Budget budget(long limit) {
+    check(limit > 0);
+    return new Budget(limit);
+  }
+
+  public static Budget unlimited() {
+    return new Budget(Long.MAX_VALUE) {
+      public void acquire(long weight) {
+        check(weight >= 0);
+      }
+
+      public void release(long weight) {
+        check(weight >= 0);
+      }
+
+      public String toString() {
+        return "unlimited()";
+      }
+    };
+  }
+
+  public static Budget getDefault() {
+    return defaultBudget;
+  }
+
+  public static void setDefault(Budget budget) {
+    check(budget != null);
+    defaultBudget = budget;
+  }
+
+  /**
+   * Registers this budget in platform MBean server as
+   * {@code com.perunlabs.mokosh:type=Budget,name=<name>}.
+   */
+  public Budget registerMBean(String name) {
+    Beans.registerMBean(this, "Budget", name);
+    return this;
+  }
+
+  public synchronized void acquire(long weight) {
+    check(weight >= 0);
+    try {
+      while (used > 0 && weight > limit - used) {
+        wait();
+      }
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+    used += weight;
+  }
+
+  public synchronized void release(long weight) {
+    check(0 <= weight && weight <= used);
+    used -= weight;
+    notifyAll();
+  }
+
+  public long getLimit() {
+    return limit;
+  }
+
+  public synchronized long getUsed() {
+    return used;
+  }
+
+  public String toString() {
+    return format("budget(%s)", limit);
+  }
+}
@@ -0,0 +1,7 @@
+package com.perunlabs.mokosh.iterating;
+
+public interface BudgetMXBean {
+  long getLimit();
+
+  long getUsed();
+}
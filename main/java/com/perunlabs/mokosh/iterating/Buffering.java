@@ -1,16 +1,23 @@
 package com.perunlabs.mokosh.iterating;
 
 import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.iterating.Draining.drain;
 import static com.perunlabs.mokosh.running.Supplying.supplying;
 import static java.lang.String.format;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import com.perunlabs.mokosh.AbortException;
 import com.perunlabs.mokosh.running.Running;
@@ -25,30 +32,25 @@ public class Buffering<E> implements Iterating<E> {
   private boolean closed;
 
   private Buffering(int limit, Iterator<E> iterator) {
-    iterating = supplying(() -> {
+    iterating = supplying(this::toString, () -> {
+      List<E> batch = new ArrayList<>();
       lock.lock();
       try {
         while (true) {
-          lock.unlock();
-          try {
-            if (!iterator.hasNext()) {
-              break;
-            }
-          } finally {
-            lock.lock();
-          }
-
           while (queue.size() == limit) {
             await(untilChange);
           }
-          E next;
+          int space = limit - queue.size();
           lock.unlock();
           try {
-            next = iterator.next();
+            if (drain(iterator, batch, space) == 0) {
+              break;
+            }
           } finally {
             lock.lock();
           }
-          queue.add(next);
+          queue.addAll(batch);
+          batch.clear();
           untilChange.signal();
         }
         while (queue.size() > 0) {
@@ -72,10 +74,29 @@ public class Buffering<E> implements Iterating<E> {
     };
   }
 
+  /**
+   * Closes stream once buffering completes.
+   */
+  public static <E> Iterating<E> streamBuffering(int limit, Stream<E> stream) {
+    check(limit > 0);
+    check(stream != null);
+    Iterating<E> buffering = new Buffering<E>(limit, stream.iterator()) {
+      public String toString() {
+        return format("streamBuffering(%s, %s)", limit, stream);
+      }
+    };
+    buffering.onComplete(result -> stream.close());
+    return buffering;
+  }
+
   public Supplier<Void> await() {
     return iterating.await();
   }
 
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return iterating.await(timeout);
+  }
+
   public Running<Void> abort() {
     return iterating.abort();
   }
@@ -84,18 +105,15 @@ public class Buffering<E> implements Iterating<E> {
     return iterating.isRunning();
   }
 
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    iterating.onComplete(callback);
+    return this;
+  }
+
   public boolean hasNext() {
     lock.lock();
     try {
-      while (true) {
-        if (!queue.isEmpty()) {
-          return true;
-        }
-        if (queue.isEmpty() && closed) {
-          return false;
-        }
-        await(untilChange);
-      }
+      return awaitAvailable();
     } finally {
       lock.unlock();
     }
@@ -104,10 +122,7 @@ public class Buffering<E> implements Iterating<E> {
   public E next() {
     lock.lock();
     try {
-      check(hasNext());
-      while (queue.isEmpty()) {
-        await(untilChange);
-      }
+      check(awaitAvailable());
       E next = queue.remove(0);
       untilChange.signal();
       return next;
@@ -116,6 +131,35 @@ public class Buffering<E> implements Iterating<E> {
     }
   }
 
+  public int drainTo(Collection<? super E> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        return 0;
+      }
+      int count = Math.min(max, queue.size());
+      for (int i = 0; i < count; i++) {
+        collection.add(queue.remove(0));
+      }
+      untilChange.signal();
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean awaitAvailable() {
+    while (queue.isEmpty()) {
+      if (closed) {
+        return false;
+      }
+      await(untilChange);
+    }
+    return true;
+  }
+
   private void await(Condition condition) {
     try {
       condition.await();
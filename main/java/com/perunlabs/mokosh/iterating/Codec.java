@@ -0,0 +1,14 @@
+package com.perunlabs.mokosh.iterating;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes elements as bytes and reads them back, so stages can keep them outside heap.
+ */
+public interface Codec<E> {
+  void encode(E element, DataOutput output) throws IOException;
+
+  E decode(DataInput input) throws IOException;
+}
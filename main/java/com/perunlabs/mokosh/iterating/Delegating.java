@@ -1,9 +1,14 @@
 package com.perunlabs.mokosh.iterating;
 
 import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.iterating.Draining.drain;
 import static java.lang.String.format;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.perunlabs.mokosh.running.Running;
@@ -27,6 +32,10 @@ public class Delegating<E> implements Iterating<E> {
     return nullify(running.await());
   }
 
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return running.await(timeout).map(Delegating::nullify);
+  }
+
   public Running<Void> abort() {
     running.abort();
     return this;
@@ -36,6 +45,11 @@ public class Delegating<E> implements Iterating<E> {
     return running.isRunning();
   }
 
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    running.onComplete(result -> callback.accept(nullify(result)));
+    return this;
+  }
+
   public boolean hasNext() {
     return iterator.hasNext();
   }
@@ -44,6 +58,12 @@ public class Delegating<E> implements Iterating<E> {
     return iterator.next();
   }
 
+  public int drainTo(Collection<? super E> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    return drain(iterator, collection, max);
+  }
+
   public String toString() {
     return format("iterating(%s, %s)", running, iterator);
   }
@@ -0,0 +1,44 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+/**
+ * {@link Iterating} of doubles that does not box elements read through {@link #nextDouble()},
+ * {@link #drainTo(double[], int, int)} or {@link #forEachRemaining(DoubleConsumer)}.
+ */
+public interface DoubleIterating extends Iterating<Double>, PrimitiveIterator.OfDouble {
+  /**
+   * Primitive counterpart of {@link #drainTo(java.util.Collection, int)}.
+   *
+   * @return number of elements copied to array starting at offset, 0 if there are no more elements
+   */
+  default int drainTo(double[] array, int offset, int max) {
+    check(array != null);
+    check(max > 0);
+    check(0 <= offset && max <= array.length - offset);
+    if (!hasNext()) {
+      return 0;
+    }
+    array[offset] = nextDouble();
+    return 1;
+  }
+
+  default void forEachRemaining(DoubleConsumer action) {
+    check(action != null);
+    double[] batch = new double[Draining.batchSize];
+    int count;
+    while ((count = drainTo(batch, 0, batch.length)) > 0) {
+      for (int i = 0; i < count; i++) {
+        action.accept(batch[i]);
+      }
+    }
+  }
+
+  default void forEachRemaining(Consumer<? super Double> action) {
+    PrimitiveIterator.OfDouble.super.forEachRemaining(action);
+  }
+}
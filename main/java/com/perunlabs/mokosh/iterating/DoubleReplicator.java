@@ -0,0 +1,130 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static java.lang.String.format;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.perunlabs.mokosh.AbortException;
+
+/**
+ * {@link Replicator} of doubles.
+ */
+public class DoubleReplicator implements Iterable<Double> {
+  private final int count;
+  private final PrimitiveIterator.OfDouble mainIterator;
+
+  private final Lock lock = new ReentrantLock();
+  private CountDownLatch latch;
+  private final Set<PrimitiveIterator.OfDouble> iterators = new HashSet<>();
+  private final Set<PrimitiveIterator.OfDouble> awaitingIterators = new HashSet<>();
+  private Boolean hasNext;
+  private double next;
+
+  private DoubleReplicator(int count, PrimitiveIterator.OfDouble mainIterator) {
+    this.count = count;
+    this.mainIterator = mainIterator;
+    latch = new CountDownLatch(count);
+  }
+
+  public static DoubleReplicator doubleReplicate(int count, PrimitiveIterator.OfDouble iterator) {
+    check(count > 0);
+    check(iterator != null);
+    return new DoubleReplicator(count, iterator);
+  }
+
+  public PrimitiveIterator.OfDouble iterator() {
+    lock.lock();
+    try {
+      check(iterators.size() < count);
+      ReplicatorIterator iterator = new ReplicatorIterator();
+      iterators.add(iterator);
+      if (latch.getCount() == 1) {
+        awaitingIterators.clear();
+        latch.countDown();
+        latch = new CountDownLatch(count);
+      } else {
+        CountDownLatch current = latch;
+        current.countDown();
+        lock.unlock();
+        try {
+          await(current);
+        } finally {
+          lock.lock();
+        }
+      }
+      return iterator;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private synchronized boolean mainHasNext() {
+    if (hasNext == null) {
+      hasNext = mainIterator.hasNext();
+    }
+    return hasNext;
+  }
+
+  private synchronized double mainNext() {
+    double next = mainIterator.nextDouble();
+    hasNext = null;
+    return next;
+  }
+
+  private class ReplicatorIterator implements PrimitiveIterator.OfDouble {
+    public boolean hasNext() {
+      return mainHasNext();
+    }
+
+    public double nextDouble() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lock.lock();
+      try {
+        check(awaitingIterators.add(this));
+        if (latch.getCount() == 1) {
+          next = mainNext();
+          awaitingIterators.clear();
+          latch.countDown();
+          latch = new CountDownLatch(count);
+        } else {
+          CountDownLatch current = latch;
+          current.countDown();
+          lock.unlock();
+          try {
+            await(current);
+          } finally {
+            lock.lock();
+          }
+        }
+        return next;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public String toString() {
+      return format("%s.iterator()", DoubleReplicator.this);
+    }
+  }
+
+  public String toString() {
+    return format("doubleReplicate(%s, %s)", count, mainIterator);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.AbortException.abortIfInterrupted;
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * {@link Working} of doubles handing them over through double field.
+ */
+public class DoubleWorking implements DoubleIterating {
+  private final Running<Void> supplying;
+
+  private double slot;
+  private volatile boolean full;
+  private volatile boolean closed;
+  private volatile Thread parkedProducer;
+  private volatile Thread parkedConsumer;
+
+  private DoubleWorking(PrimitiveIterator.OfDouble iterator) {
+    supplying = supplying(this::toString, () -> {
+      while (iterator.hasNext()) {
+        double next = iterator.nextDouble();
+        awaitEmpty();
+        slot = next;
+        full = true;
+        unpark(parkedConsumer);
+      }
+      awaitEmpty();
+    });
+    supplying.onComplete(result -> {
+      closed = true;
+      unpark(parkedConsumer);
+    });
+  }
+
+  public static DoubleIterating doubleWorking(PrimitiveIterator.OfDouble iterator) {
+    check(iterator != null);
+    return new DoubleWorking(iterator) {
+      public String toString() {
+        return format("doubleWorking(%s)", iterator);
+      }
+    };
+  }
+
+  public Supplier<Void> await() {
+    return supplying.await();
+  }
+
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return supplying.await(timeout);
+  }
+
+  public Running<Void> abort() {
+    return supplying.abort();
+  }
+
+  public boolean isRunning() {
+    return supplying.isRunning();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    supplying.onComplete(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    while (!full) {
+      if (closed) {
+        return full;
+      }
+      parkedConsumer = Thread.currentThread();
+      if (!full && !closed) {
+        LockSupport.park(this);
+      }
+      parkedConsumer = null;
+      abortIfInterrupted();
+    }
+    return true;
+  }
+
+  public double nextDouble() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    double next = slot;
+    full = false;
+    unpark(parkedProducer);
+    return next;
+  }
+
+  private void awaitEmpty() {
+    while (full) {
+      parkedProducer = Thread.currentThread();
+      if (full) {
+        LockSupport.park(this);
+      }
+      parkedProducer = null;
+      abortIfInterrupted();
+    }
+  }
+
+  private static void unpark(Thread thread) {
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.perunlabs.mokosh.iterating;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+class Draining {
+  static final int batchSize = 1024;
+
+  /**
+   * Pulls batch from iterator if it is {@link Iterating}, otherwise pulls single element.
+   */
+  static <E> int drain(Iterator<E> iterator, Collection<? super E> collection, int max) {
+    if (iterator instanceof Iterating) {
+      return ((Iterating<E>) iterator).drainTo(collection, max);
+    } else if (iterator.hasNext()) {
+      collection.add(iterator.next());
+      return 1;
+    } else {
+      return 0;
+    }
+  }
+}
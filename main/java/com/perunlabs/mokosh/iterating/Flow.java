@@ -0,0 +1,29 @@
+package com.perunlabs.mokosh.iterating;
+
+/**
+ * Same interfaces as {@code java.util.concurrent.Flow}, which is not available in java 8. They can
+ * be bridged to it or to Reactive Streams with method references.
+ */
+public final class Flow {
+  private Flow() {}
+
+  public interface Publisher<T> {
+    void subscribe(Subscriber<? super T> subscriber);
+  }
+
+  public interface Subscriber<T> {
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+  }
+
+  public interface Subscription {
+    void request(long n);
+
+    void cancel();
+  }
+}
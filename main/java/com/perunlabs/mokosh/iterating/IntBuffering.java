@@ -0,0 +1,175 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * {@link Buffering} of ints backed by int array.
+ */
+public class IntBuffering implements IntIterating {
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+
+  private final Running<Void> iterating;
+
+  private final int[] queue;
+  private int head;
+  private int size;
+  private boolean closed;
+
+  private IntBuffering(int limit, PrimitiveIterator.OfInt iterator) {
+    queue = new int[limit];
+    iterating = supplying(this::toString, () -> {
+      lock.lock();
+      try {
+        while (true) {
+          lock.unlock();
+          try {
+            if (!iterator.hasNext()) {
+              break;
+            }
+          } finally {
+            lock.lock();
+          }
+          while (size == queue.length) {
+            await(untilChange);
+          }
+          int next;
+          lock.unlock();
+          try {
+            next = iterator.nextInt();
+          } finally {
+            lock.lock();
+          }
+          queue[(head + size) % queue.length] = next;
+          size++;
+          untilChange.signal();
+        }
+        while (size > 0) {
+          await(untilChange);
+        }
+      } finally {
+        lock.unlock();
+      }
+    });
+    iterating.onComplete(result -> {
+      lock.lock();
+      try {
+        closed = true;
+        untilChange.signal();
+      } finally {
+        lock.unlock();
+      }
+    });
+  }
+
+  public static IntIterating intBuffering(int limit, PrimitiveIterator.OfInt iterator) {
+    check(limit > 0);
+    check(iterator != null);
+    return new IntBuffering(limit, iterator) {
+      public String toString() {
+        return format("intBuffering(%s, %s)", limit, iterator);
+      }
+    };
+  }
+
+  public Supplier<Void> await() {
+    return iterating.await();
+  }
+
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return iterating.await(timeout);
+  }
+
+  public Running<Void> abort() {
+    return iterating.abort();
+  }
+
+  public boolean isRunning() {
+    return iterating.isRunning();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    iterating.onComplete(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    lock.lock();
+    try {
+      return awaitAvailable();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int nextInt() {
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        throw new NoSuchElementException();
+      }
+      int next = queue[head];
+      head = (head + 1) % queue.length;
+      size--;
+      untilChange.signal();
+      return next;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int drainTo(int[] array, int offset, int max) {
+    check(array != null);
+    check(max > 0);
+    check(0 <= offset && max <= array.length - offset);
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        return 0;
+      }
+      int count = Math.min(max, size);
+      int first = Math.min(count, queue.length - head);
+      System.arraycopy(queue, head, array, offset, first);
+      System.arraycopy(queue, 0, array, offset + first, count - first);
+      head = (head + count) % queue.length;
+      size -= count;
+      untilChange.signal();
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean awaitAvailable() {
+    while (size == 0) {
+      if (closed) {
+        return false;
+      }
+      await(untilChange);
+    }
+    return true;
+  }
+
+  private static void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
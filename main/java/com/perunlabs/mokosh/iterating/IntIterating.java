@@ -0,0 +1,44 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link Iterating} of ints that does not box elements read through {@link #nextInt()},
+ * {@link #drainTo(int[], int, int)} or {@link #forEachRemaining(IntConsumer)}.
+ */
+public interface IntIterating extends Iterating<Integer>, PrimitiveIterator.OfInt {
+  /**
+   * Primitive counterpart of {@link #drainTo(java.util.Collection, int)}.
+   *
+   * @return number of elements copied to array starting at offset, 0 if there are no more elements
+   */
+  default int drainTo(int[] array, int offset, int max) {
+    check(array != null);
+    check(max > 0);
+    check(0 <= offset && max <= array.length - offset);
+    if (!hasNext()) {
+      return 0;
+    }
+    array[offset] = nextInt();
+    return 1;
+  }
+
+  default void forEachRemaining(IntConsumer action) {
+    check(action != null);
+    int[] batch = new int[Draining.batchSize];
+    int count;
+    while ((count = drainTo(batch, 0, batch.length)) > 0) {
+      for (int i = 0; i < count; i++) {
+        action.accept(batch[i]);
+      }
+    }
+  }
+
+  default void forEachRemaining(Consumer<? super Integer> action) {
+    PrimitiveIterator.OfInt.super.forEachRemaining(action);
+  }
+}
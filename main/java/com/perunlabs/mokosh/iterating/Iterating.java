@@ -1,7 +1,68 @@
 package com.perunlabs.mokosh.iterating;
 
+import static com.perunlabs.mokosh.MokoshException.check;
+
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.perunlabs.mokosh.running.Running;
 
-public interface Iterating<T> extends Running<Void>, Iterator<T> {}
+public interface Iterating<T> extends Running<Void>, Iterator<T> {
+  /**
+   * Moves at most max elements to collection. Blocks until at least one element is available, then
+   * moves only elements that are available without blocking. Stages override it to move whole
+   * batch under single lock acquisition.
+   *
+   * @return number of moved elements, 0 if there are no more elements
+   */
+  default int drainTo(Collection<? super T> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    if (!hasNext()) {
+      return 0;
+    }
+    collection.add(next());
+    return 1;
+  }
+
+  /**
+   * @return at most max elements as described in {@link #drainTo(Collection, int)}, empty list if
+   *         there are no more elements
+   */
+  default List<T> nextBatch(int max) {
+    List<T> batch = new ArrayList<>();
+    drainTo(batch, max);
+    return batch;
+  }
+
+  /**
+   * @return sequential stream of remaining elements. Closing it aborts this running.
+   */
+  default Stream<T> stream() {
+    return StreamSupport.stream(new IteratingSpliterator<>(this), false)
+        .onClose(() -> abort());
+  }
+
+  /**
+   * @return parallel stream of remaining elements, split into batches drained from this iterating.
+   *         Closing it aborts this running.
+   */
+  default Stream<T> parallelStream() {
+    return StreamSupport.stream(new IteratingSpliterator<>(this), true)
+        .onClose(() -> abort());
+  }
+
+  default void forEachRemaining(Consumer<? super T> action) {
+    check(action != null);
+    List<T> batch = new ArrayList<>();
+    while (drainTo(batch, Draining.batchSize) > 0) {
+      batch.forEach(action);
+      batch.clear();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.perunlabs.mokosh.iterating;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Splits off batches drained from iterating, growing batch size so parallel stream gets enough
+ * work per split. Like {@link Spliterators#spliteratorUnknownSize(java.util.Iterator, int)}, split
+ * waits until batch is full or iterating ends, so slow producing stages still split whole batches.
+ */
+class IteratingSpliterator<E> implements Spliterator<E> {
+  private static final int maxBatch = 1 << 25;
+
+  private final Iterating<E> iterating;
+  private int batch = Draining.batchSize;
+
+  IteratingSpliterator(Iterating<E> iterating) {
+    this.iterating = iterating;
+  }
+
+  public boolean tryAdvance(Consumer<? super E> action) {
+    if (iterating.hasNext()) {
+      action.accept(iterating.next());
+      return true;
+    }
+    return false;
+  }
+
+  public void forEachRemaining(Consumer<? super E> action) {
+    iterating.forEachRemaining(action);
+  }
+
+  public Spliterator<E> trySplit() {
+    List<E> elements = new ArrayList<>();
+    while (elements.size() < batch) {
+      if (iterating.drainTo(elements, batch - elements.size()) == 0) {
+        break;
+      }
+    }
+    if (elements.isEmpty()) {
+      return null;
+    }
+    batch = Math.min(batch + Draining.batchSize, maxBatch);
+    return Spliterators.spliterator(elements.toArray(), ORDERED);
+  }
+
+  public long estimateSize() {
+    return Long.MAX_VALUE;
+  }
+
+  public int characteristics() {
+    return ORDERED;
+  }
+}
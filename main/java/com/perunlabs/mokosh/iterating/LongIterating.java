@@ -0,0 +1,44 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link Iterating} of longs that does not box elements read through {@link #nextLong()},
+ * {@link #drainTo(long[], int, int)} or {@link #forEachRemaining(LongConsumer)}.
+ */
+public interface LongIterating extends Iterating<Long>, PrimitiveIterator.OfLong {
+  /**
+   * Primitive counterpart of {@link #drainTo(java.util.Collection, int)}.
+   *
+   * @return number of elements copied to array starting at offset, 0 if there are no more elements
+   */
+  default int drainTo(long[] array, int offset, int max) {
+    check(array != null);
+    check(max > 0);
+    check(0 <= offset && max <= array.length - offset);
+    if (!hasNext()) {
+      return 0;
+    }
+    array[offset] = nextLong();
+    return 1;
+  }
+
+  default void forEachRemaining(LongConsumer action) {
+    check(action != null);
+    long[] batch = new long[Draining.batchSize];
+    int count;
+    while ((count = drainTo(batch, 0, batch.length)) > 0) {
+      for (int i = 0; i < count; i++) {
+        action.accept(batch[i]);
+      }
+    }
+  }
+
+  default void forEachRemaining(Consumer<? super Long> action) {
+    PrimitiveIterator.OfLong.super.forEachRemaining(action);
+  }
+}
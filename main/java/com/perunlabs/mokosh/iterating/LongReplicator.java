@@ -0,0 +1,130 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static java.lang.String.format;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.perunlabs.mokosh.AbortException;
+
+/**
+ * {@link Replicator} of longs.
+ */
+public class LongReplicator implements Iterable<Long> {
+  private final int count;
+  private final PrimitiveIterator.OfLong mainIterator;
+
+  private final Lock lock = new ReentrantLock();
+  private CountDownLatch latch;
+  private final Set<PrimitiveIterator.OfLong> iterators = new HashSet<>();
+  private final Set<PrimitiveIterator.OfLong> awaitingIterators = new HashSet<>();
+  private Boolean hasNext;
+  private long next;
+
+  private LongReplicator(int count, PrimitiveIterator.OfLong mainIterator) {
+    this.count = count;
+    this.mainIterator = mainIterator;
+    latch = new CountDownLatch(count);
+  }
+
+  public static LongReplicator longReplicate(int count, PrimitiveIterator.OfLong iterator) {
+    check(count > 0);
+    check(iterator != null);
+    return new LongReplicator(count, iterator);
+  }
+
+  public PrimitiveIterator.OfLong iterator() {
+    lock.lock();
+    try {
+      check(iterators.size() < count);
+      ReplicatorIterator iterator = new ReplicatorIterator();
+      iterators.add(iterator);
+      if (latch.getCount() == 1) {
+        awaitingIterators.clear();
+        latch.countDown();
+        latch = new CountDownLatch(count);
+      } else {
+        CountDownLatch current = latch;
+        current.countDown();
+        lock.unlock();
+        try {
+          await(current);
+        } finally {
+          lock.lock();
+        }
+      }
+      return iterator;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private synchronized boolean mainHasNext() {
+    if (hasNext == null) {
+      hasNext = mainIterator.hasNext();
+    }
+    return hasNext;
+  }
+
+  private synchronized long mainNext() {
+    long next = mainIterator.nextLong();
+    hasNext = null;
+    return next;
+  }
+
+  private class ReplicatorIterator implements PrimitiveIterator.OfLong {
+    public boolean hasNext() {
+      return mainHasNext();
+    }
+
+    public long nextLong() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lock.lock();
+      try {
+        check(awaitingIterators.add(this));
+        if (latch.getCount() == 1) {
+          next = mainNext();
+          awaitingIterators.clear();
+          latch.countDown();
+          latch = new CountDownLatch(count);
+        } else {
+          CountDownLatch current = latch;
+          current.countDown();
+          lock.unlock();
+          try {
+            await(current);
+          } finally {
+            lock.lock();
+          }
+        }
+        return next;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public String toString() {
+      return format("%s.iterator()", LongReplicator.this);
+    }
+  }
+
+  public String toString() {
+    return format("longReplicate(%s, %s)", count, mainIterator);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Applies function on parallel workers and emits results in order of input. Source is read at
+ * most twice parallelism elements ahead of consumer, so single slow element stalls reading once
+ * that window is full.
+ */
+public class Mapping<E, R> implements Iterating<R> {
+  private final Lock sourceLock = new ReentrantLock();
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+
+  private final List<Running<Void>> workers = new ArrayList<>();
+  private final CompletableFuture<Supplier<Void>> finished = new CompletableFuture<>();
+
+  private final Object[] results;
+  private final boolean[] ready;
+  private long taken;
+  private long emitted;
+  private int active;
+  private boolean closed;
+  private Supplier<Void> failure;
+
+  private Mapping(int parallelism, Function<? super E, ? extends R> function,
+      Iterator<E> iterator) {
+    results = new Object[2 * parallelism];
+    ready = new boolean[2 * parallelism];
+    active = parallelism;
+    for (int i = 0; i < parallelism; i++) {
+      workers.add(supplying(this::toString, () -> work(function, iterator)));
+    }
+    workers.forEach(worker -> worker.onComplete(this::completed));
+  }
+
+  /**
+   * First failure aborts other workers. Mapping completes when all workers complete.
+   */
+  private void completed(Supplier<Void> result) {
+    boolean failed;
+    try {
+      result.get();
+      failed = false;
+    } catch (RuntimeException | Error e) {
+      failed = true;
+    }
+    boolean first;
+    boolean last;
+    lock.lock();
+    try {
+      first = failed && failure == null;
+      if (first) {
+        failure = result;
+      }
+      active--;
+      last = active == 0;
+      closed = last;
+      untilChange.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    if (first) {
+      abort();
+    }
+    if (last) {
+      finished.complete(failure == null
+          ? () -> null
+          : failure);
+    }
+  }
+
+  public static <E, R> Iterating<R> mapping(int parallelism,
+      Function<? super E, ? extends R> function, Iterator<E> iterator) {
+    check(parallelism > 0);
+    check(function != null);
+    check(iterator != null);
+    return new Mapping<E, R>(parallelism, function, iterator) {
+      public String toString() {
+        return format("mapping(%s, %s, %s)", parallelism, function, iterator);
+      }
+    };
+  }
+
+  private void work(Function<? super E, ? extends R> function, Iterator<E> iterator) {
+    while (true) {
+      E element;
+      long sequence;
+      lockInterruptibly(sourceLock);
+      try {
+        lock.lock();
+        try {
+          while (taken - emitted == results.length) {
+            await(untilChange);
+          }
+        } finally {
+          lock.unlock();
+        }
+        if (!iterator.hasNext()) {
+          break;
+        }
+        element = iterator.next();
+        lock.lock();
+        try {
+          sequence = taken++;
+        } finally {
+          lock.unlock();
+        }
+      } finally {
+        sourceLock.unlock();
+      }
+      R result = function.apply(element);
+      lock.lock();
+      try {
+        int index = index(sequence);
+        results[index] = result;
+        ready[index] = true;
+        untilChange.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+    lock.lock();
+    try {
+      while (emitted != taken) {
+        await(untilChange);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public Supplier<Void> await() {
+    try {
+      return finished.get();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public Running<Void> abort() {
+    workers.forEach(Running::abort);
+    return this;
+  }
+
+  public boolean isRunning() {
+    return !finished.isDone();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    check(callback != null);
+    finished.thenAccept(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    lock.lock();
+    try {
+      return awaitAvailable();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public R next() {
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        throw new NoSuchElementException();
+      }
+      R next = take();
+      untilChange.signalAll();
+      return next;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int drainTo(Collection<? super R> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        return 0;
+      }
+      int count = 0;
+      do {
+        collection.add(take());
+        count++;
+      } while (count < max && ready[index(emitted)]);
+      untilChange.signalAll();
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean awaitAvailable() {
+    while (!ready[index(emitted)]) {
+      if (closed) {
+        return false;
+      }
+      await(untilChange);
+    }
+    return true;
+  }
+
+  private R take() {
+    int index = index(emitted);
+    @SuppressWarnings("unchecked")
+    R next = (R) results[index];
+    results[index] = null;
+    ready[index] = false;
+    emitted++;
+    return next;
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence % results.length);
+  }
+
+  private static void lockInterruptibly(Lock lock) {
+    try {
+      lock.lockInterruptibly();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+
+  private static void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
@@ -0,0 +1,311 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Drains iterators concurrently, each into its own buffer of limit elements, and emits their
+ * elements as single iteration. Sources that are {@link Running} are aborted with merging and
+ * their result becomes part of its result. First failure aborts all of them.
+ */
+public class Merging<E> implements Iterating<E> {
+  private enum Ordering {
+    MERGING, ALTERNATING, PRIORITIZING
+  }
+
+  private final Ordering ordering;
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+
+  private final List<Running<?>> runnings = new ArrayList<>();
+  private final CompletableFuture<Supplier<Void>> finished = new CompletableFuture<>();
+
+  private final List<LinkedList<E>> queues = new ArrayList<>();
+  private final boolean[] closed;
+  private final LinkedList<Integer> arrivals = new LinkedList<>();
+  private int turn;
+  private int active;
+  private Supplier<Void> failure;
+
+  private Merging(Ordering ordering, int limit, List<? extends Iterator<? extends E>> iterators) {
+    this.ordering = ordering;
+    this.closed = new boolean[iterators.size()];
+    for (int i = 0; i < iterators.size(); i++) {
+      int source = i;
+      Iterator<? extends E> iterator = iterators.get(i);
+      LinkedList<E> queue = new LinkedList<>();
+      queues.add(queue);
+      Running<Void> pumping = supplying(this::toString, () -> pump(limit, source, iterator));
+      pumping.onComplete(result -> close(source));
+      runnings.add(pumping);
+      if (iterator instanceof Running) {
+        runnings.add((Running<?>) iterator);
+      }
+    }
+    active = runnings.size();
+    runnings.forEach(running -> running.onComplete(this::completed));
+  }
+
+  /**
+   * Emits elements in order they arrived from sources.
+   */
+  public static <E> Iterating<E> merging(int limit, List<? extends Iterator<? extends E>> iterators) {
+    return merging(Ordering.MERGING, limit, iterators);
+  }
+
+  /**
+   * Emits elements taking them from sources in turns, skipping sources that have no more elements.
+   */
+  public static <E> Iterating<E> alternating(int limit,
+      List<? extends Iterator<? extends E>> iterators) {
+    return merging(Ordering.ALTERNATING, limit, iterators);
+  }
+
+  /**
+   * Emits element from first source in list that has one available.
+   */
+  public static <E> Iterating<E> prioritizing(int limit,
+      List<? extends Iterator<? extends E>> iterators) {
+    return merging(Ordering.PRIORITIZING, limit, iterators);
+  }
+
+  private static <E> Iterating<E> merging(Ordering ordering, int limit,
+      List<? extends Iterator<? extends E>> iterators) {
+    check(limit > 0);
+    check(iterators != null);
+    check(!iterators.isEmpty());
+    check(!iterators.contains(null));
+    List<? extends Iterator<? extends E>> copy = new ArrayList<>(iterators);
+    return new Merging<E>(ordering, limit, copy) {
+      public String toString() {
+        return format("%s(%s, %s)", ordering.name().toLowerCase(), limit, copy);
+      }
+    };
+  }
+
+  private void pump(int limit, int source, Iterator<? extends E> iterator) {
+    LinkedList<E> queue = queues.get(source);
+    lock.lock();
+    try {
+      while (true) {
+        lock.unlock();
+        try {
+          if (!iterator.hasNext()) {
+            break;
+          }
+        } finally {
+          lock.lock();
+        }
+        while (queue.size() == limit) {
+          await(untilChange);
+        }
+        E next;
+        lock.unlock();
+        try {
+          next = iterator.next();
+        } finally {
+          lock.lock();
+        }
+        queue.add(next);
+        if (ordering == Ordering.MERGING) {
+          arrivals.add(source);
+        }
+        untilChange.signalAll();
+      }
+      while (!queue.isEmpty()) {
+        await(untilChange);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void close(int source) {
+    lock.lock();
+    try {
+      closed[source] = true;
+      untilChange.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void completed(Supplier<?> result) {
+    boolean failed;
+    try {
+      result.get();
+      failed = false;
+    } catch (RuntimeException | Error e) {
+      failed = true;
+    }
+    boolean first;
+    boolean last;
+    lock.lock();
+    try {
+      first = failed && failure == null;
+      if (first) {
+        failure = () -> {
+          result.get();
+          return null;
+        };
+      }
+      active--;
+      last = active == 0;
+    } finally {
+      lock.unlock();
+    }
+    if (first) {
+      abort();
+    }
+    if (last) {
+      finished.complete(failure == null
+          ? () -> null
+          : failure);
+    }
+  }
+
+  public Supplier<Void> await() {
+    try {
+      return finished.get();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public Running<Void> abort() {
+    runnings.forEach(Running::abort);
+    return this;
+  }
+
+  public boolean isRunning() {
+    return !finished.isDone();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    check(callback != null);
+    finished.thenAccept(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    lock.lock();
+    try {
+      return awaitAvailable() >= 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public E next() {
+    lock.lock();
+    try {
+      int source = awaitAvailable();
+      if (source < 0) {
+        throw new NoSuchElementException();
+      }
+      return take(source);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int drainTo(Collection<? super E> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    lock.lock();
+    try {
+      int source = awaitAvailable();
+      int count = 0;
+      while (source >= 0 && count < max) {
+        collection.add(take(source));
+        count++;
+        source = available();
+      }
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return source to take next element from or -1 if all sources are closed and empty
+   */
+  private int awaitAvailable() {
+    while (true) {
+      int source = available();
+      if (source >= 0) {
+        return source;
+      }
+      if (isDrained()) {
+        return -1;
+      }
+      await(untilChange);
+    }
+  }
+
+  private int available() {
+    if (ordering == Ordering.MERGING) {
+      return arrivals.isEmpty()
+          ? -1
+          : arrivals.getFirst();
+    }
+    for (int i = 0; i < queues.size(); i++) {
+      int source = ordering == Ordering.ALTERNATING
+          ? (turn + i) % queues.size()
+          : i;
+      if (!queues.get(source).isEmpty()) {
+        return source;
+      } else if (ordering == Ordering.ALTERNATING && !closed[source]) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private boolean isDrained() {
+    for (int source = 0; source < queues.size(); source++) {
+      if (!closed[source] || !queues.get(source).isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private E take(int source) {
+    E next = queues.get(source).removeFirst();
+    if (ordering == Ordering.MERGING) {
+      arrivals.removeFirst();
+    }
+    turn = (source + 1) % queues.size();
+    untilChange.signalAll();
+    return next;
+  }
+
+  private static void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
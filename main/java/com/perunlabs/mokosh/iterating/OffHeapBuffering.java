@@ -0,0 +1,320 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.common.Lambdas.aborted;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Buffering that keeps elements encoded by codec in direct byte buffers outside heap, so buffered
+ * elements do not add to garbage collection pauses. Elements are decoded only when read, outside
+ * lock. Producer waits when buffered elements would exceed limit bytes, counting 4 bytes of length
+ * of each element, except that element larger than limit is buffered alone. Buffers are only units
+ * of allocation, segments of fixed size taken from pool shared by all off heap bufferings.
+ */
+public class OffHeapBuffering<E> implements Iterating<E> {
+  private static final int segmentBytes = 1 << 16;
+  private static final int poolLimit = 1 << 6;
+  private static final Deque<ByteBuffer> pool = new ArrayDeque<>();
+
+  private final long limit;
+  private final Codec<E> codec;
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+
+  private final Running<Void> iterating;
+  private final LinkedList<ByteBuffer> segments = new LinkedList<>();
+  private final byte[] header = new byte[4];
+  private ByteBuffer reader;
+  private int count;
+  private long buffered;
+  private boolean closed;
+
+  private OffHeapBuffering(long limit, Codec<E> codec, Iterator<E> iterator) {
+    this.limit = limit;
+    this.codec = codec;
+    iterating = supplying(this::toString, () -> {
+      try {
+        Encoded encoded = new Encoded();
+        DataOutputStream encoding = new DataOutputStream(encoded);
+        byte[] length = new byte[4];
+        while (iterator.hasNext()) {
+          E element = iterator.next();
+          encoded.reset();
+          encode(element, encoding);
+          ByteBuffer.wrap(length).putInt(encoded.size());
+          lock.lock();
+          try {
+            while (count > 0 && buffered + 4 + encoded.size() > limit) {
+              await(untilChange);
+            }
+            write(length, 4);
+            write(encoded.array(), encoded.size());
+            count++;
+            buffered += 4 + encoded.size();
+            untilChange.signalAll();
+          } finally {
+            lock.unlock();
+          }
+        }
+        lock.lock();
+        try {
+          while (count > 0) {
+            await(untilChange);
+          }
+        } finally {
+          lock.unlock();
+        }
+      } catch (AbortException e) {
+        close(true);
+        throw e;
+      } finally {
+        close(false);
+      }
+    });
+    iterating.onComplete(result -> close(aborted(result)));
+  }
+
+  public static <E> Iterating<E> offHeapBuffering(long limit, Codec<E> codec,
+      Iterator<E> iterator) {
+    check(limit > 0);
+    check(codec != null);
+    check(iterator != null);
+    return new OffHeapBuffering<E>(limit, codec, iterator) {
+      public String toString() {
+        return format("offHeapBuffering(%s, %s, %s)", limit, codec, iterator);
+      }
+    };
+  }
+
+  public Supplier<Void> await() {
+    return iterating.await();
+  }
+
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return iterating.await(timeout);
+  }
+
+  public Running<Void> abort() {
+    return iterating.abort();
+  }
+
+  public boolean isRunning() {
+    return iterating.isRunning();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    iterating.onComplete(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    lock.lock();
+    try {
+      return awaitAvailable();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public E next() {
+    byte[] next;
+    lock.lock();
+    try {
+      check(awaitAvailable());
+      next = take();
+    } finally {
+      lock.unlock();
+    }
+    return decode(next);
+  }
+
+  public int drainTo(Collection<? super E> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    List<byte[]> batch = new ArrayList<>();
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        return 0;
+      }
+      do {
+        batch.add(take());
+      } while (batch.size() < max && count > 0);
+    } finally {
+      lock.unlock();
+    }
+    for (byte[] encoded : batch) {
+      collection.add(decode(encoded));
+    }
+    return batch.size();
+  }
+
+  private void write(byte[] bytes, int length) {
+    int offset = 0;
+    while (offset < length) {
+      if (segments.isEmpty() || !segments.getLast().hasRemaining()) {
+        segments.addLast(acquire());
+        if (reader == null) {
+          reader = readerOf(segments.getFirst());
+        }
+      }
+      ByteBuffer segment = segments.getLast();
+      int written = Math.min(length - offset, segment.remaining());
+      segment.put(bytes, offset, written);
+      offset += written;
+    }
+  }
+
+  private byte[] take() {
+    read(header, 4);
+    byte[] encoded = new byte[ByteBuffer.wrap(header).getInt()];
+    read(encoded, encoded.length);
+    count--;
+    buffered -= 4 + encoded.length;
+    if (closed && count == 0) {
+      discard();
+    }
+    untilChange.signalAll();
+    return encoded;
+  }
+
+  /**
+   * Segment is given back to pool as soon as it is full and read.
+   */
+  private void read(byte[] bytes, int length) {
+    int offset = 0;
+    while (offset < length) {
+      reader.limit(segments.getFirst().position());
+      int read = Math.min(length - offset, reader.remaining());
+      reader.get(bytes, offset, read);
+      offset += read;
+      if (reader.position() == reader.capacity()) {
+        release(segments.removeFirst());
+        reader = segments.isEmpty()
+            ? null
+            : readerOf(segments.getFirst());
+      }
+    }
+  }
+
+  private boolean awaitAvailable() {
+    while (count == 0) {
+      if (closed) {
+        return false;
+      }
+      await(untilChange);
+    }
+    return true;
+  }
+
+  /**
+   * Called by producer, so segments are given back before running completes, and by completion
+   * callback in case producer was aborted before it started. Buffered elements are discarded only
+   * when aborted, otherwise consumer reads them and gives back segments after last one.
+   */
+  private void close(boolean aborted) {
+    lock.lock();
+    try {
+      closed = true;
+      if (aborted || count == 0) {
+        discard();
+      }
+      untilChange.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void discard() {
+    count = 0;
+    buffered = 0;
+    reader = null;
+    segments.forEach(OffHeapBuffering::release);
+    segments.clear();
+  }
+
+  private void encode(E element, DataOutputStream encoding) {
+    try {
+      codec.encode(element, encoding);
+      encoding.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private E decode(byte[] encoded) {
+    try {
+      return codec.decode(new DataInputStream(new ByteArrayInputStream(encoded)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+
+  private static ByteBuffer readerOf(ByteBuffer segment) {
+    ByteBuffer reader = segment.duplicate();
+    reader.position(0);
+    return reader;
+  }
+
+  private static ByteBuffer acquire() {
+    synchronized (pool) {
+      ByteBuffer segment = pool.pollFirst();
+      if (segment != null) {
+        return segment;
+      }
+    }
+    return ByteBuffer.allocateDirect(segmentBytes);
+  }
+
+  private static void release(ByteBuffer segment) {
+    segment.clear();
+    synchronized (pool) {
+      if (pool.size() < poolLimit) {
+        pool.addFirst(segment);
+      }
+    }
+  }
+
+  /**
+   * Gives access to encoded bytes without copying them.
+   */
+  private static class Encoded extends ByteArrayOutputStream {
+    private byte[] array() {
+      return buf;
+    }
+  }
+}
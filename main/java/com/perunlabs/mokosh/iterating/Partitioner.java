@@ -0,0 +1,75 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static java.lang.String.format;
+
+import java.util.function.Function;
+
+/**
+ * Chooses partition for element. Called by single thread, so implementation may keep state.
+ */
+public interface Partitioner<E> {
+  /**
+   * @param queued
+   *          number of elements waiting in each partition, must not be modified
+   * @return index of partition in range from 0 to queued.length exclusive
+   */
+  int partition(E element, int[] queued);
+
+  /**
+   * Sends elements with equal keys to same partition.
+   */
+  static <E> Partitioner<E> hashing(Function<? super E, ?> key) {
+    check(key != null);
+    return new Partitioner<E>() {
+      public int partition(E element, int[] queued) {
+        Object hashed = key.apply(element);
+        int hash = hashed == null
+            ? 0
+            : hashed.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), queued.length);
+      }
+
+      public String toString() {
+        return format("hashing(%s)", key);
+      }
+    };
+  }
+
+  static <E> Partitioner<E> roundRobin() {
+    return new Partitioner<E>() {
+      private int next;
+
+      public int partition(E element, int[] queued) {
+        int partition = next;
+        next = (next + 1) % queued.length;
+        return partition;
+      }
+
+      public String toString() {
+        return "roundRobin()";
+      }
+    };
+  }
+
+  /**
+   * Sends element to partition with fewest elements waiting.
+   */
+  static <E> Partitioner<E> leastLoaded() {
+    return new Partitioner<E>() {
+      public int partition(E element, int[] queued) {
+        int least = 0;
+        for (int partition = 1; partition < queued.length; partition++) {
+          if (queued[partition] < queued[least]) {
+            least = partition;
+          }
+        }
+        return least;
+      }
+
+      public String toString() {
+        return "leastLoaded()";
+      }
+    };
+  }
+}
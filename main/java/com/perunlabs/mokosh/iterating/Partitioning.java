@@ -0,0 +1,214 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Splits elements between count partitions chosen by {@link Partitioner}. Each partition buffers up
+ * to limit elements. Partition that is full stops reading of source, so every partition must be
+ * consumed. All partitions share single running.
+ */
+public class Partitioning<E> {
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+
+  private final Running<Void> partitioning;
+
+  private final List<LinkedList<E>> queues = new ArrayList<>();
+  private final int[] queued;
+  private boolean closed;
+
+  private Partitioning(int count, int limit, Partitioner<? super E> partitioner,
+      Iterator<E> iterator) {
+    queued = new int[count];
+    for (int i = 0; i < count; i++) {
+      queues.add(new LinkedList<>());
+    }
+    partitioning = supplying(this::toString, () -> {
+      lock.lock();
+      try {
+        while (true) {
+          E next;
+          lock.unlock();
+          try {
+            if (!iterator.hasNext()) {
+              break;
+            }
+            next = iterator.next();
+          } finally {
+            lock.lock();
+          }
+          int partition = partitioner.partition(next, queued);
+          check(0 <= partition && partition < count);
+          while (queued[partition] == limit) {
+            await(untilChange);
+          }
+          queues.get(partition).add(next);
+          queued[partition]++;
+          untilChange.signalAll();
+        }
+        while (!isDrained()) {
+          await(untilChange);
+        }
+      } finally {
+        lock.unlock();
+      }
+    });
+    partitioning.onComplete(result -> {
+      lock.lock();
+      try {
+        closed = true;
+        untilChange.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    });
+  }
+
+  public static <E> List<Iterating<E>> partitioning(int count, int limit,
+      Partitioner<? super E> partitioner, Iterator<E> iterator) {
+    check(count > 0);
+    check(limit > 0);
+    check(partitioner != null);
+    check(iterator != null);
+    Partitioning<E> partitioning = new Partitioning<E>(count, limit, partitioner, iterator) {
+      public String toString() {
+        return format("partitioning(%s, %s, %s, %s)", count, limit, partitioner, iterator);
+      }
+    };
+    List<Iterating<E>> partitions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      partitions.add(partitioning.new Partition(i));
+    }
+    return unmodifiableList(partitions);
+  }
+
+  private boolean isDrained() {
+    for (int count : queued) {
+      if (count > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private class Partition implements Iterating<E> {
+    private final int index;
+    private final LinkedList<E> queue;
+
+    private Partition(int index) {
+      this.index = index;
+      this.queue = queues.get(index);
+    }
+
+    public Supplier<Void> await() {
+      return partitioning.await();
+    }
+
+    public Optional<Supplier<Void>> await(Duration timeout) {
+      return partitioning.await(timeout);
+    }
+
+    public Running<Void> abort() {
+      partitioning.abort();
+      return this;
+    }
+
+    public boolean isRunning() {
+      return partitioning.isRunning();
+    }
+
+    public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+      partitioning.onComplete(callback);
+      return this;
+    }
+
+    public boolean hasNext() {
+      lock.lock();
+      try {
+        return awaitAvailable();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public E next() {
+      lock.lock();
+      try {
+        if (!awaitAvailable()) {
+          throw new NoSuchElementException();
+        }
+        return take();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public int drainTo(Collection<? super E> collection, int max) {
+      check(collection != null);
+      check(max > 0);
+      lock.lock();
+      try {
+        if (!awaitAvailable()) {
+          return 0;
+        }
+        int count = 0;
+        do {
+          collection.add(take());
+          count++;
+        } while (count < max && !queue.isEmpty());
+        return count;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private boolean awaitAvailable() {
+      while (queue.isEmpty()) {
+        if (closed) {
+          return false;
+        }
+        Partitioning.await(untilChange);
+      }
+      return true;
+    }
+
+    private E take() {
+      E next = queue.removeFirst();
+      queued[index]--;
+      untilChange.signalAll();
+      return next;
+    }
+
+    public String toString() {
+      return format("%s.get(%s)", Partitioning.this, index);
+    }
+  }
+
+  private static void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.MokoshException;
+
+/**
+ * Publishes elements of iterating to single subscriber. Elements are pulled by execution that runs
+ * only while subscriber has outstanding demand, so waiting for request does not hold a thread.
+ * Cancelling subscription aborts iterating. Iterating that fails or gets aborted signals error.
+ */
+public class Publishing<T> implements Flow.Publisher<T> {
+  private final Iterating<T> iterating;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  private Publishing(Iterating<T> iterating) {
+    this.iterating = iterating;
+  }
+
+  public static <T> Flow.Publisher<T> publishing(Iterating<T> iterating) {
+    check(iterating != null);
+    return new Publishing<>(iterating);
+  }
+
+  public void subscribe(Flow.Subscriber<? super T> subscriber) {
+    check(subscriber != null);
+    if (subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Delivery(subscriber));
+    } else {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        public void request(long n) {}
+
+        public void cancel() {}
+      });
+      subscriber.onError(new MokoshException("publisher supports single subscriber"));
+    }
+  }
+
+  public String toString() {
+    return format("publishing(%s)", iterating);
+  }
+
+  private class Delivery implements Flow.Subscription {
+    private final Flow.Subscriber<? super T> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    private volatile boolean cancelled;
+    private volatile boolean invalid;
+
+    private Delivery(Flow.Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    /**
+     * Execution is started only when demand grows from zero, so at most one delivers at a time.
+     */
+    public void request(long n) {
+      if (n <= 0) {
+        invalid = true;
+      }
+      long added = Math.max(n, 1);
+      long previous = requested.getAndUpdate(demand -> demand + added < 0
+          ? Long.MAX_VALUE
+          : demand + added);
+      if (previous == 0) {
+        supplying(Publishing.this::toString, this::deliver);
+      }
+    }
+
+    public void cancel() {
+      cancelled = true;
+      iterating.abort();
+    }
+
+    private void deliver() {
+      long emitted = 0;
+      while (true) {
+        long demand = requested.get();
+        while (emitted != demand) {
+          if (cancelled) {
+            return;
+          } else if (invalid) {
+            cancel();
+            subscriber.onError(new IllegalArgumentException("request must be positive"));
+            return;
+          } else if (!iterating.hasNext()) {
+            if (!cancelled) {
+              terminate();
+            }
+            return;
+          }
+          subscriber.onNext(iterating.next());
+          emitted++;
+        }
+        if (requested.addAndGet(-emitted) == 0) {
+          return;
+        }
+        emitted = 0;
+      }
+    }
+
+    /**
+     * Iterating ends with abort also when subscriber cancelled, which must not be signalled.
+     */
+    private void terminate() {
+      Supplier<Void> result = iterating.await();
+      if (cancelled) {
+        return;
+      }
+      try {
+        result.get();
+      } catch (RuntimeException | Error e) {
+        subscriber.onError(e);
+        return;
+      }
+      subscriber.onComplete();
+    }
+  }
+}
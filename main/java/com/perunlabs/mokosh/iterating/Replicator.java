@@ -14,6 +14,10 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import com.perunlabs.mokosh.AbortException;
 
+/**
+ * Replicates elements to count iterators moving in lockstep. See {@link Broadcasting} for
+ * iterators that may move apart, join or leave.
+ */
 public class Replicator<E> implements Iterable<E> {
   private final int count;
   private final Iterator<E> mainIterator;
@@ -47,10 +51,11 @@ public class Replicator<E> implements Iterable<E> {
         latch.countDown();
         latch = new CountDownLatch(count);
       } else {
-        latch.countDown();
+        CountDownLatch current = latch;
+        current.countDown();
         lock.unlock();
         try {
-          await(latch);
+          await(current);
         } finally {
           lock.lock();
         }
@@ -79,10 +84,11 @@ public class Replicator<E> implements Iterable<E> {
           latch.countDown();
           latch = new CountDownLatch(count);
         } else {
-          latch.countDown();
+          CountDownLatch current = latch;
+          current.countDown();
           lock.unlock();
           try {
-            await(latch);
+            await(current);
           } finally {
             lock.lock();
           }
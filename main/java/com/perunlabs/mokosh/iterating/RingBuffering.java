@@ -0,0 +1,204 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.AbortException.abortIfInterrupted;
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.iterating.Draining.drain;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Lock-free alternative to {@link Buffering} for single consumer thread. Elements are handed over
+ * through preallocated ring without allocating per element. Producer parks only when ring is full
+ * and consumer only when it is empty, both after yielding for a while. Capacity is rounded up to
+ * power of two.
+ */
+public class RingBuffering<E> implements Iterating<E> {
+  private static final int spinLimit = 1 << 6;
+
+  private final Object[] ring;
+  private final int mask;
+  private final Sequence head = new Sequence();
+  private final Sequence tail = new Sequence();
+  private volatile Thread parkedProducer;
+  private volatile Thread parkedConsumer;
+  private volatile boolean closed;
+
+  private final Running<Void> producing;
+
+  private RingBuffering(int capacity, Iterator<E> iterator) {
+    ring = new Object[capacity];
+    mask = capacity - 1;
+    producing = supplying(this::toString, () -> {
+      List<E> batch = new ArrayList<>();
+      long position = 0;
+      while (true) {
+        if (position - head.value == ring.length) {
+          long written = position;
+          BooleanSupplier full = () -> written - head.value == ring.length;
+          for (int spins = 0; full.getAsBoolean(); spins++) {
+            parkProducer(full, spins);
+          }
+        }
+        int space = (int) (ring.length - (position - head.value));
+        if (drain(iterator, batch, space) == 0) {
+          break;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+          ring[(int) position++ & mask] = batch.get(i);
+        }
+        batch.clear();
+        tail.value = position;
+        unpark(parkedConsumer);
+      }
+      long written = position;
+      BooleanSupplier unread = () -> head.value != written;
+      for (int spins = 0; unread.getAsBoolean(); spins++) {
+        parkProducer(unread, spins);
+      }
+    });
+    producing.onComplete(result -> {
+      closed = true;
+      unpark(parkedConsumer);
+    });
+  }
+
+  public static <E> Iterating<E> ringBuffering(int capacity, Iterator<E> iterator) {
+    check(0 < capacity && capacity <= 1 << 30);
+    check(iterator != null);
+    int powerOfTwo = capacity == 1
+        ? 1
+        : Integer.highestOneBit(capacity - 1) << 1;
+    return new RingBuffering<E>(powerOfTwo, iterator) {
+      public String toString() {
+        return format("ringBuffering(%s, %s)", capacity, iterator);
+      }
+    };
+  }
+
+  public Supplier<Void> await() {
+    return producing.await();
+  }
+
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return producing.await(timeout);
+  }
+
+  public Running<Void> abort() {
+    return producing.abort();
+  }
+
+  public boolean isRunning() {
+    return producing.isRunning();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    producing.onComplete(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    long position = head.value;
+    for (int spins = 0; position == tail.value; spins++) {
+      if (closed) {
+        return position != tail.value;
+      }
+      if (spins < spinLimit) {
+        Thread.yield();
+        continue;
+      }
+      parkedConsumer = Thread.currentThread();
+      if (position == tail.value && !closed) {
+        LockSupport.park(this);
+      }
+      parkedConsumer = null;
+      abortIfInterrupted();
+    }
+    return true;
+  }
+
+  public E next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    long position = head.value;
+    int index = (int) position & mask;
+    @SuppressWarnings("unchecked")
+    E next = (E) ring[index];
+    ring[index] = null;
+    head.value = position + 1;
+    unpark(parkedProducer);
+    return next;
+  }
+
+  public int drainTo(Collection<? super E> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    if (!hasNext()) {
+      return 0;
+    }
+    long position = head.value;
+    int count = (int) Math.min(max, tail.value - position);
+    for (int i = 0; i < count; i++) {
+      int index = (int) position++ & mask;
+      @SuppressWarnings("unchecked")
+      E next = (E) ring[index];
+      ring[index] = null;
+      collection.add(next);
+    }
+    head.value = position;
+    unpark(parkedProducer);
+    return count;
+  }
+
+  /**
+   * Waiting condition is checked again after producer is published, so unpark by consumer that
+   * just changed it is not lost.
+   */
+  private void parkProducer(BooleanSupplier waiting, int spins) {
+    if (spins < spinLimit) {
+      Thread.yield();
+      return;
+    }
+    parkedProducer = Thread.currentThread();
+    if (waiting.getAsBoolean()) {
+      LockSupport.park(this);
+    }
+    parkedProducer = null;
+    abortIfInterrupted();
+  }
+
+  private static void unpark(Thread thread) {
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * Padded so producer and consumer sequences do not share cache line.
+   */
+  private static class Sequence extends SequenceValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+  }
+
+  private static class SequenceValue extends SequencePadding {
+    protected volatile long value;
+  }
+
+  private static class SequencePadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+  }
+}
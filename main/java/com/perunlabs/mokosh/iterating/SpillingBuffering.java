@@ -0,0 +1,504 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.common.Lambdas.aborted;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Buffering that never blocks producer. At most limit elements are kept in memory. Elements over
+ * limit are encoded by codec and collected into blocks that producer appends to segment files in
+ * directory, each holding at most segmentSize elements. Consumer reads segments in order while
+ * they are written and deletes them once they are full and read. Encoded elements not yet written
+ * are read directly from memory, so consumer that keeps pace never waits for disk. Files are
+ * created, written, read and deleted outside of lock, which guards only bookkeeping. All segments
+ * are deleted when buffering is aborted. Elements spilled before source failed can still be read.
+ */
+public class SpillingBuffering<E> implements Iterating<E> {
+  private static final int defaultSegmentSize = 1024;
+  private static final int blockBytes = 1 << 16;
+
+  private final int limit;
+  private final int segmentSize;
+  private final Codec<E> codec;
+  private final Path directory;
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+  private final Lock consuming = new ReentrantLock();
+
+  private final Running<Void> iterating;
+  private final LinkedList<E> head = new LinkedList<>();
+  private final LinkedList<byte[]> pending = new LinkedList<>();
+  private final LinkedList<Segment> segments = new LinkedList<>();
+  private int pendingBytes;
+  private int writing;
+  private long unread;
+  private Segment reading;
+  private boolean decoding;
+  private boolean closed;
+
+  private SpillingBuffering(int limit, int segmentSize, Codec<E> codec, Path directory,
+      Iterator<E> iterator) {
+    this.limit = limit;
+    this.segmentSize = segmentSize;
+    this.codec = codec;
+    this.directory = directory;
+    iterating = supplying(this::toString, () -> {
+      Writer writer = new Writer();
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream encoding = new DataOutputStream(bytes);
+        while (iterator.hasNext()) {
+          E element = iterator.next();
+          if (!keep(element)) {
+            bytes.reset();
+            encode(element, encoding);
+            List<byte[]> block = spill(bytes.toByteArray());
+            if (block != null) {
+              writer.write(block);
+            }
+          }
+        }
+        writer.close();
+        lock.lock();
+        try {
+          while (!head.isEmpty() || !pending.isEmpty() || unread > 0) {
+            await(untilChange);
+          }
+        } finally {
+          lock.unlock();
+        }
+      } catch (AbortException e) {
+        close(true);
+        throw e;
+      } finally {
+        writer.discard();
+        close(false);
+      }
+    });
+    iterating.onComplete(result -> close(aborted(result)));
+  }
+
+  public static <E> Iterating<E> spillingBuffering(int limit, Codec<E> codec,
+      Iterator<E> iterator) {
+    check(limit > 0);
+    check(codec != null);
+    check(iterator != null);
+    Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+    return new SpillingBuffering<E>(limit, defaultSegmentSize, codec, directory, iterator) {
+      public String toString() {
+        return format("spillingBuffering(%s, %s, %s)", limit, codec, iterator);
+      }
+    };
+  }
+
+  public static <E> Iterating<E> spillingBuffering(int limit, int segmentSize, Codec<E> codec,
+      Path directory, Iterator<E> iterator) {
+    check(limit > 0);
+    check(segmentSize > 0);
+    check(codec != null);
+    check(directory != null);
+    check(iterator != null);
+    return new SpillingBuffering<E>(limit, segmentSize, codec, directory, iterator) {
+      public String toString() {
+        return format("spillingBuffering(%s, %s, %s, %s, %s)",
+            limit, segmentSize, codec, directory, iterator);
+      }
+    };
+  }
+
+  public Supplier<Void> await() {
+    return iterating.await();
+  }
+
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return iterating.await(timeout);
+  }
+
+  public Running<Void> abort() {
+    return iterating.abort();
+  }
+
+  public boolean isRunning() {
+    return iterating.isRunning();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    iterating.onComplete(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    lock.lock();
+    try {
+      return awaitAvailable();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public E next() {
+    consuming.lock();
+    try {
+      return take();
+    } finally {
+      consuming.unlock();
+    }
+  }
+
+  public int drainTo(Collection<? super E> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    consuming.lock();
+    try {
+      if (!hasNext()) {
+        return 0;
+      }
+      int count = 0;
+      do {
+        collection.add(take());
+        count++;
+      } while (count < max && available());
+      return count;
+    } finally {
+      consuming.unlock();
+    }
+  }
+
+  /**
+   * Element is kept in memory only if nothing is spilled, so order is preserved.
+   */
+  private boolean keep(E element) {
+    lock.lock();
+    try {
+      if (pending.isEmpty() && writing == 0 && unread == 0 && head.size() < limit) {
+        head.add(element);
+        untilChange.signalAll();
+        return true;
+      }
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return block of encoded elements that producer should write or null if block is not full yet
+   */
+  private List<byte[]> spill(byte[] encoded) {
+    lock.lock();
+    try {
+      pending.add(encoded);
+      pendingBytes += encoded.length;
+      untilChange.signalAll();
+      if (pendingBytes < blockBytes) {
+        return null;
+      }
+      List<byte[]> block = new ArrayList<>(pending);
+      pending.clear();
+      pendingBytes = 0;
+      writing = block.size();
+      return block;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Consumer takes elements from memory first, then from segments, then encoded elements not yet
+   * written. Elements that are being written are waited for.
+   */
+  private E take() {
+    Segment segment;
+    byte[] encoded;
+    lock.lock();
+    try {
+      check(awaitAvailable());
+      if (!head.isEmpty()) {
+        E next = head.removeFirst();
+        untilChange.signalAll();
+        return next;
+      } else if (unread > 0) {
+        segment = segments.getFirst();
+        encoded = null;
+        decoding = true;
+      } else {
+        segment = null;
+        encoded = pending.removeFirst();
+        pendingBytes -= encoded.length;
+        untilChange.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+    return segment == null
+        ? decode(encoded)
+        : read(segment);
+  }
+
+  private E read(Segment segment) {
+    try {
+      if (reading != segment) {
+        if (reading != null) {
+          reading.discard();
+        }
+        segment.input = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(segment.path), blockBytes));
+        reading = segment;
+      }
+      return codec.decode(segment.input);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      boolean discarded;
+      lock.lock();
+      try {
+        decoding = false;
+        segment.read++;
+        unread--;
+        discarded = !segments.contains(segment) || segment.isRead() && segments.remove(segment);
+        if (discarded) {
+          reading = null;
+        }
+        untilChange.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      if (discarded) {
+        segment.discard();
+      }
+    }
+  }
+
+  private boolean available() {
+    return !head.isEmpty() || unread > 0 || writing == 0 && !pending.isEmpty();
+  }
+
+  private boolean awaitAvailable() {
+    while (!available()) {
+      if (closed) {
+        return false;
+      }
+      await(untilChange);
+    }
+    return true;
+  }
+
+  /**
+   * Called by producer, so segments are deleted before running completes, and by completion
+   * callback in case producer was aborted before it started. Spilled elements are discarded only
+   * when aborted, otherwise consumer reads them and deletes segments. Segment that consumer is
+   * decoding is deleted by consumer.
+   */
+  private void close(boolean aborted) {
+    List<Segment> discarded = new ArrayList<>();
+    lock.lock();
+    try {
+      closed = true;
+      if (aborted) {
+        head.clear();
+        pending.clear();
+        pendingBytes = 0;
+        writing = 0;
+        unread = 0;
+        discarded.addAll(segments);
+        segments.clear();
+        if (reading != null && decoding) {
+          discarded.remove(reading);
+        } else {
+          reading = null;
+        }
+      }
+      untilChange.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    discarded.forEach(Segment::discard);
+  }
+
+  private void encode(E element, DataOutputStream encoding) {
+    try {
+      codec.encode(element, encoding);
+      encoding.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private E decode(byte[] encoded) {
+    try {
+      return codec.decode(new DataInputStream(new ByteArrayInputStream(encoded)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+
+  /**
+   * Owned by producer. Appends blocks to segment and publishes them to consumer after they are
+   * flushed.
+   */
+  private class Writer {
+    private Segment segment;
+    private OutputStream output;
+    private int written;
+
+    private void write(List<byte[]> block) {
+      try {
+        int unpublished = 0;
+        for (byte[] encoded : block) {
+          if (segment == null || written == segmentSize) {
+            publish(unpublished);
+            unpublished = 0;
+            seal();
+            open();
+          }
+          output.write(encoded);
+          written++;
+          unpublished++;
+        }
+        publish(unpublished);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void publish(int count) throws IOException {
+      if (count > 0) {
+        output.flush();
+        lock.lock();
+        try {
+          segment.written += count;
+          unread += count;
+          writing -= count;
+          untilChange.signalAll();
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+
+    private void open() throws IOException {
+      Segment opened = new Segment(Files.createTempFile(directory, "spilling", ".segment"));
+      output = new BufferedOutputStream(Files.newOutputStream(opened.path), blockBytes);
+      written = 0;
+      lock.lock();
+      try {
+        segments.add(opened);
+        segment = opened;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Segment that consumer has already read is deleted by producer.
+     */
+    private void seal() throws IOException {
+      if (output != null) {
+        try {
+          output.close();
+        } finally {
+          output = null;
+          boolean read;
+          lock.lock();
+          try {
+            segment.sealed = true;
+            read = segment.isRead() && segments.remove(segment);
+          } finally {
+            lock.unlock();
+          }
+          if (read) {
+            segment.discard();
+          }
+        }
+      }
+    }
+
+    private void close() {
+      try {
+        seal();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    /**
+     * Cleanup after failure or abort, so failures are ignored. Segment is still sealed, so consumer
+     * can read elements published before failure and delete it.
+     */
+    private void discard() {
+      try {
+        seal();
+      } catch (IOException e) {}
+    }
+  }
+
+  private static class Segment {
+    private final Path path;
+    private DataInputStream input;
+    private int written;
+    private int read;
+    private boolean sealed;
+
+    private Segment(Path path) {
+      this.path = path;
+    }
+
+    private boolean isRead() {
+      return sealed && read == written;
+    }
+
+    /**
+     * Cleanup, so failures are ignored.
+     */
+    private void discard() {
+      try {
+        close(input);
+        Files.deleteIfExists(path);
+      } catch (IOException e) {}
+    }
+
+    private static void close(Closeable closeable) throws IOException {
+      if (closeable != null) {
+        closeable.close();
+      }
+    }
+  }
+}
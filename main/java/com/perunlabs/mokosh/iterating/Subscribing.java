@@ -0,0 +1,251 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static java.lang.String.format;
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Subscribes to publisher and iterates elements it publishes. Requests prefetch elements up front
+ * and requests more each time half of them is consumed, so at most prefetch elements are buffered.
+ * Aborting cancels subscription. Error signaled by publisher becomes result of running.
+ */
+public class Subscribing<T> implements Iterating<T> {
+  private final int prefetch;
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+  private final CompletableFuture<Supplier<Void>> finished = new CompletableFuture<>();
+
+  private final LinkedList<T> queue = new LinkedList<>();
+  private Flow.Subscription subscription;
+  private boolean terminated;
+  private Throwable failure;
+  private int consumed;
+
+  private Subscribing(int prefetch) {
+    this.prefetch = prefetch;
+  }
+
+  public static <T> Iterating<T> subscribing(int prefetch, Flow.Publisher<T> publisher) {
+    check(prefetch > 0);
+    check(publisher != null);
+    Subscribing<T> subscribing = new Subscribing<T>(prefetch) {
+      public String toString() {
+        return format("subscribing(%s, %s)", prefetch, publisher);
+      }
+    };
+    publisher.subscribe(subscribing.new Subscriber());
+    return subscribing;
+  }
+
+  public Supplier<Void> await() {
+    try {
+      return finished.get();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public Running<Void> abort() {
+    Flow.Subscription cancelling;
+    lock.lock();
+    try {
+      if (finished.isDone()) {
+        return this;
+      }
+      finished.complete(() -> {
+        throw new AbortException();
+      });
+      untilChange.signalAll();
+      cancelling = subscription;
+    } finally {
+      lock.unlock();
+    }
+    if (cancelling != null) {
+      cancelling.cancel();
+    }
+    return this;
+  }
+
+  public boolean isRunning() {
+    return !finished.isDone();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    check(callback != null);
+    finished.thenAccept(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    lock.lock();
+    try {
+      return awaitAvailable();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public T next() {
+    T next;
+    long replenished;
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        throw new NoSuchElementException();
+      }
+      next = queue.removeFirst();
+      replenished = consumed();
+    } finally {
+      lock.unlock();
+    }
+    request(replenished);
+    return next;
+  }
+
+  public int drainTo(Collection<? super T> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    int count = 0;
+    long replenished = 0;
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        return 0;
+      }
+      do {
+        collection.add(queue.removeFirst());
+        replenished += consumed();
+        count++;
+      } while (count < max && !queue.isEmpty());
+    } finally {
+      lock.unlock();
+    }
+    request(replenished);
+    return count;
+  }
+
+  private boolean awaitAvailable() {
+    while (queue.isEmpty()) {
+      if (terminated || finished.isDone()) {
+        return false;
+      }
+      await(untilChange);
+    }
+    return true;
+  }
+
+  /**
+   * @return number of elements to request after consuming one
+   */
+  private long consumed() {
+    completeIfDrained();
+    consumed++;
+    if (consumed < Math.max(1, prefetch / 2) || terminated) {
+      return 0;
+    }
+    int replenished = consumed;
+    consumed = 0;
+    return replenished;
+  }
+
+  private void request(long n) {
+    if (n > 0) {
+      subscription.request(n);
+    }
+  }
+
+  private void completeIfDrained() {
+    if (terminated && queue.isEmpty()) {
+      finished.complete(failure == null
+          ? () -> null
+          : () -> {
+            throw unchecked(failure);
+          });
+    }
+  }
+
+  private class Subscriber implements Flow.Subscriber<T> {
+    public void onSubscribe(Flow.Subscription subscription) {
+      check(subscription != null);
+      boolean accepted;
+      lock.lock();
+      try {
+        accepted = Subscribing.this.subscription == null && !finished.isDone();
+        if (accepted) {
+          Subscribing.this.subscription = subscription;
+        }
+      } finally {
+        lock.unlock();
+      }
+      if (accepted) {
+        subscription.request(prefetch);
+      } else {
+        subscription.cancel();
+      }
+    }
+
+    public void onNext(T item) {
+      lock.lock();
+      try {
+        queue.add(item);
+        untilChange.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void onError(Throwable throwable) {
+      terminate(throwable);
+    }
+
+    public void onComplete() {
+      terminate(null);
+    }
+
+    private void terminate(Throwable throwable) {
+      lock.lock();
+      try {
+        terminated = true;
+        failure = throwable;
+        completeIfDrained();
+        untilChange.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static RuntimeException unchecked(Throwable throwable) {
+    if (throwable instanceof RuntimeException) {
+      return (RuntimeException) throwable;
+    } else if (throwable instanceof Error) {
+      throw (Error) throwable;
+    } else {
+      return new CompletionException(throwable);
+    }
+  }
+
+  private static void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package com.perunlabs.mokosh.iterating;
+
+import java.util.Iterator;
+
+/**
+ * Iterator that can leave source it is subscribed to. Closed subscription has no more elements.
+ */
+public interface Subscription<E> extends Iterator<E>, AutoCloseable {
+  void close();
+}
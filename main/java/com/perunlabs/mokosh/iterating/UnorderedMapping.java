@@ -0,0 +1,239 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Applies function on {@link ForkJoinPool} and emits results as soon as they are computed. At most
+ * window elements are mapped or wait for consumer at once, reading source stalls until consumer
+ * takes some of them. Function calls that already started are not interrupted by abort, their
+ * results are discarded.
+ */
+public class UnorderedMapping<E, R> implements Iterating<R> {
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+
+  private final Running<Void> feeding;
+
+  private final Queue<R> results = new LinkedList<>();
+  private int outstanding;
+  private boolean closed;
+  private Throwable failure;
+
+  private UnorderedMapping(ForkJoinPool pool, int window,
+      Function<? super E, ? extends R> function, Iterator<E> iterator) {
+    feeding = supplying(this::toString, () -> {
+      lock.lock();
+      try {
+        while (true) {
+          lock.unlock();
+          try {
+            if (!iterator.hasNext()) {
+              break;
+            }
+          } finally {
+            lock.lock();
+          }
+          while (outstanding == window && failure == null) {
+            await(untilChange);
+          }
+          failIfFailed();
+          E element;
+          lock.unlock();
+          try {
+            element = iterator.next();
+          } finally {
+            lock.lock();
+          }
+          outstanding++;
+          pool.execute(() -> map(function, element));
+        }
+        while (outstanding > 0 && failure == null) {
+          await(untilChange);
+        }
+        failIfFailed();
+      } finally {
+        lock.unlock();
+      }
+    });
+    feeding.onComplete(result -> {
+      lock.lock();
+      try {
+        closed = true;
+        untilChange.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    });
+  }
+
+  public static <E, R> Iterating<R> unorderedMapping(int window,
+      Function<? super E, ? extends R> function, Iterator<E> iterator) {
+    return unorderedMapping(ForkJoinPool.commonPool(), window, function, iterator);
+  }
+
+  public static <E, R> Iterating<R> unorderedMapping(ForkJoinPool pool, int window,
+      Function<? super E, ? extends R> function, Iterator<E> iterator) {
+    check(pool != null);
+    check(window > 0);
+    check(function != null);
+    check(iterator != null);
+    return new UnorderedMapping<E, R>(pool, window, function, iterator) {
+      public String toString() {
+        return format("unorderedMapping(%s, %s, %s, %s)", pool, window, function, iterator);
+      }
+    };
+  }
+
+  private void map(Function<? super E, ? extends R> function, E element) {
+    if (isClosed()) {
+      return;
+    }
+    R result;
+    try {
+      result = function.apply(element);
+    } catch (RuntimeException | Error e) {
+      lock.lock();
+      try {
+        if (failure == null) {
+          failure = e;
+        }
+        untilChange.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      return;
+    }
+    lock.lock();
+    try {
+      if (!closed) {
+        results.add(result);
+        untilChange.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean isClosed() {
+    lock.lock();
+    try {
+      return closed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void failIfFailed() {
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+  }
+
+  public Supplier<Void> await() {
+    return feeding.await();
+  }
+
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return feeding.await(timeout);
+  }
+
+  public Running<Void> abort() {
+    return feeding.abort();
+  }
+
+  public boolean isRunning() {
+    return feeding.isRunning();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    feeding.onComplete(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    lock.lock();
+    try {
+      return awaitAvailable();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public R next() {
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        throw new NoSuchElementException();
+      }
+      return take();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int drainTo(Collection<? super R> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        return 0;
+      }
+      int count = 0;
+      do {
+        collection.add(take());
+        count++;
+      } while (count < max && !results.isEmpty());
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean awaitAvailable() {
+    while (results.isEmpty()) {
+      if (closed) {
+        return false;
+      }
+      await(untilChange);
+    }
+    return true;
+  }
+
+  private R take() {
+    R next = results.remove();
+    outstanding--;
+    untilChange.signalAll();
+    return next;
+  }
+
+  private static void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.common.Lambdas.aborted;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static java.lang.String.format;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.running.Running;
+
+/**
+ * Buffering bounded by total weight of buffered elements instead of their count. Weight of each
+ * element is computed once by weigher, usually as estimated bytes. Element heavier than limit is
+ * buffered alone. Weight of buffered elements is also acquired from {@link Budget} shared with
+ * other buffers and released when element is read or when buffering is aborted. Elements buffered
+ * before source failed can still be read.
+ */
+public class WeighingBuffering<E> implements Iterating<E> {
+  private final long limit;
+  private final Budget budget;
+  private final Lock lock = new ReentrantLock();
+  private final Condition untilChange = lock.newCondition();
+
+  private final Running<Void> iterating;
+  private final LinkedList<Weighed<E>> queue = new LinkedList<>();
+  private long weight;
+  private boolean closed;
+
+  private WeighingBuffering(long limit, Budget budget, ToLongFunction<? super E> weigher,
+      Iterator<E> iterator) {
+    this.limit = limit;
+    this.budget = budget;
+    iterating = supplying(this::toString, () -> {
+      try {
+        while (iterator.hasNext()) {
+          E element = iterator.next();
+          long elementWeight = weigher.applyAsLong(element);
+          check(elementWeight >= 0);
+          awaitSpace(elementWeight);
+          budget.acquire(elementWeight);
+          lock.lock();
+          try {
+            queue.add(new Weighed<>(element, elementWeight));
+            weight += elementWeight;
+            untilChange.signalAll();
+          } finally {
+            lock.unlock();
+          }
+        }
+        lock.lock();
+        try {
+          while (queue.size() > 0) {
+            await(untilChange);
+          }
+        } finally {
+          lock.unlock();
+        }
+      } catch (AbortException e) {
+        close(true);
+        throw e;
+      } finally {
+        close(false);
+      }
+    });
+    iterating.onComplete(result -> close(aborted(result)));
+  }
+
+  public static <E> Iterating<E> weighingBuffering(long limit, ToLongFunction<? super E> weigher,
+      Iterator<E> iterator) {
+    check(limit > 0);
+    check(weigher != null);
+    check(iterator != null);
+    return new WeighingBuffering<E>(limit, Budget.getDefault(), weigher, iterator) {
+      public String toString() {
+        return format("weighingBuffering(%s, %s, %s)", limit, weigher, iterator);
+      }
+    };
+  }
+
+  public static <E> Iterating<E> weighingBuffering(long limit, Budget budget,
+      ToLongFunction<? super E> weigher, Iterator<E> iterator) {
+    check(limit > 0);
+    check(budget != null);
+    check(weigher != null);
+    check(iterator != null);
+    return new WeighingBuffering<E>(limit, budget, weigher, iterator) {
+      public String toString() {
+        return format("weighingBuffering(%s, %s, %s, %s)", limit, budget, weigher, iterator);
+      }
+    };
+  }
+
+  public Supplier<Void> await() {
+    return iterating.await();
+  }
+
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return iterating.await(timeout);
+  }
+
+  public Running<Void> abort() {
+    return iterating.abort();
+  }
+
+  public boolean isRunning() {
+    return iterating.isRunning();
+  }
+
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    iterating.onComplete(callback);
+    return this;
+  }
+
+  public boolean hasNext() {
+    lock.lock();
+    try {
+      return awaitAvailable();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public E next() {
+    lock.lock();
+    try {
+      check(awaitAvailable());
+      return take();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int drainTo(Collection<? super E> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    lock.lock();
+    try {
+      if (!awaitAvailable()) {
+        return 0;
+      }
+      int count = Math.min(max, queue.size());
+      for (int i = 0; i < count; i++) {
+        collection.add(take());
+      }
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Called by producer, so weight is released before running completes, and by completion
+   * callback in case producer was aborted before it started. Buffered elements are discarded only
+   * when aborted, otherwise consumer reads them and releases their weight.
+   */
+  private void close(boolean aborted) {
+    lock.lock();
+    try {
+      closed = true;
+      if (aborted) {
+        budget.release(weight);
+        weight = 0;
+        queue.clear();
+      }
+      untilChange.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private E take() {
+    Weighed<E> next = queue.removeFirst();
+    weight -= next.weight;
+    budget.release(next.weight);
+    untilChange.signalAll();
+    return next.element;
+  }
+
+  private void awaitSpace(long elementWeight) {
+    lock.lock();
+    try {
+      while (!queue.isEmpty() && elementWeight > limit - weight) {
+        await(untilChange);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean awaitAvailable() {
+    while (queue.isEmpty()) {
+      if (closed) {
+        return false;
+      }
+      await(untilChange);
+    }
+    return true;
+  }
+
+  private void await(Condition condition) {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+
+  private static class Weighed<E> {
+    private final E element;
+    private final long weight;
+
+    private Weighed(E element, long weight) {
+      this.element = element;
+      this.weight = weight;
+    }
+  }
+}
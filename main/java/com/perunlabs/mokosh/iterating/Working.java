@@ -1,73 +1,99 @@
 package com.perunlabs.mokosh.iterating;
 
+import static com.perunlabs.mokosh.AbortException.abortIfInterrupted;
 import static com.perunlabs.mokosh.MokoshException.check;
 import static com.perunlabs.mokosh.running.Supplying.supplying;
 import static java.lang.String.format;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-import com.perunlabs.mokosh.AbortException;
 import com.perunlabs.mokosh.running.Running;
 
+/**
+ * Hands elements over one by one through single slot. Waiting thread spins given number of times
+ * before it parks, trading cpu for latency.
+ */
 public class Working<E> implements Iterating<E> {
-  private final Lock lock = new ReentrantLock();
-  private final Condition untilChange = lock.newCondition();
-
+  private final int spins;
   private final Running<Void> supplying;
-  private Optional<E> slot = Optional.empty();
-  private boolean closed;
-
-  private Working(Iterator<E> iterator) {
-    supplying = supplying(() -> {
-      lock.lock();
-      try {
-        while (true) {
-          E next;
-          lock.unlock();
-          try {
-            if (!iterator.hasNext()) {
-              break;
-            }
-            next = iterator.next();
-          } finally {
-            lock.lock();
-          }
-          while (slot.isPresent()) {
-            await(untilChange);
-          }
-          slot = Optional.of(next);
-          untilChange.signal();
-        }
-        while (slot.isPresent()) {
-          await(untilChange);
-        }
-        closed = true;
-        untilChange.signal();
-      } finally {
-        lock.unlock();
+
+  private E slot;
+  private volatile boolean full;
+  private volatile boolean closed;
+  private volatile Thread parkedProducer;
+  private volatile Thread parkedConsumer;
+
+  private Working(int spins, Iterator<E> iterator) {
+    this.spins = spins;
+    supplying = supplying(this::toString, () -> {
+      while (iterator.hasNext()) {
+        E next = iterator.next();
+        awaitEmpty();
+        slot = next;
+        full = true;
+        unpark(parkedConsumer);
       }
+      awaitEmpty();
+    });
+    supplying.onComplete(result -> {
+      closed = true;
+      unpark(parkedConsumer);
     });
   }
 
   public static <E> Iterating<E> working(Iterator<E> iterator) {
     check(iterator != null);
-    return new Working<E>(iterator) {
+    return new Working<E>(0, iterator) {
       public String toString() {
         return format("working(%s)", iterator);
       }
     };
   }
 
+  /**
+   * Closes stream once working completes. Spliterator can be passed as
+   * {@code StreamSupport.stream(spliterator, false)}.
+   */
+  public static <E> Iterating<E> streamWorking(Stream<E> stream) {
+    check(stream != null);
+    Iterating<E> working = new Working<E>(0, stream.iterator()) {
+      public String toString() {
+        return format("streamWorking(%s)", stream);
+      }
+    };
+    working.onComplete(result -> stream.close());
+    return working;
+  }
+
+  /**
+   * Low latency variant of {@link #working(Iterator)} that busy spins before parking.
+   */
+  public static <E> Iterating<E> working(int spins, Iterator<E> iterator) {
+    check(spins >= 0);
+    check(iterator != null);
+    return new Working<E>(spins, iterator) {
+      public String toString() {
+        return format("working(%s, %s)", spins, iterator);
+      }
+    };
+  }
+
   public Supplier<Void> await() {
     return supplying.await();
   }
 
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return supplying.await(timeout);
+  }
+
   public Running<Void> abort() {
     return supplying.abort();
   }
@@ -76,43 +102,74 @@ public class Working<E> implements Iterating<E> {
     return supplying.isRunning();
   }
 
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    supplying.onComplete(callback);
+    return this;
+  }
+
   public boolean hasNext() {
-    lock.lock();
-    try {
-      while (true) {
-        if (slot.isPresent()) {
-          return true;
-        }
-        if (!slot.isPresent() && closed) {
-          return false;
-        }
-        await(untilChange);
+    for (int spun = 0; !full; spun++) {
+      if (closed) {
+        return full;
       }
-    } finally {
-      lock.unlock();
+      if (spun < spins) {
+        continue;
+      }
+      parkedConsumer = Thread.currentThread();
+      if (!full && !closed) {
+        LockSupport.park(this);
+      }
+      parkedConsumer = null;
+      abortIfInterrupted();
     }
+    return true;
   }
 
   public E next() {
-    lock.lock();
-    try {
-      if (!hasNext()) {
-        throw new NoSuchElementException();
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return take();
+  }
+
+  /**
+   * Moves at most single element, since that is all this stage holds.
+   */
+  public int drainTo(Collection<? super E> collection, int max) {
+    check(collection != null);
+    check(max > 0);
+    if (!hasNext()) {
+      return 0;
+    }
+    collection.add(take());
+    return 1;
+  }
+
+  private E take() {
+    E next = slot;
+    slot = null;
+    full = false;
+    unpark(parkedProducer);
+    return next;
+  }
+
+  private void awaitEmpty() {
+    for (int spun = 0; full; spun++) {
+      if (spun < spins) {
+        continue;
+      }
+      parkedProducer = Thread.currentThread();
+      if (full) {
+        LockSupport.park(this);
       }
-      E next = slot.get();
-      slot = Optional.empty();
-      untilChange.signal();
-      return next;
-    } finally {
-      lock.unlock();
+      parkedProducer = null;
+      abortIfInterrupted();
     }
   }
 
-  private static void await(Condition condition) {
-    try {
-      condition.await();
-    } catch (InterruptedException e) {
-      throw new AbortException(e);
+  private static void unpark(Thread thread) {
+    if (thread != null) {
+      LockSupport.unpark(thread);
     }
   }
 }
@@ -0,0 +1,152 @@
+package com.perunlabs.mokosh.running;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static java.lang.String.format;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.perunlabs.mokosh.common.Beans;
+
+/**
+ * Executor that admits at most limit tasks to underlying executor at once. Tasks over limit wait
+ * in queue without blocking submitting thread and are rejected with
+ * {@link RejectedExecutionException} once queue is full. Runnings of {@link Supplying} aborted
+ * while waiting leave queue at once. Fair queue admits waiting tasks in
+ * submission order, unfair one admits most recent first, which keeps latency of fresh tasks low
+ * under overload.
+ */
+public class Admitting implements Executor, AdmittingMXBean {
+  private final int limit;
+  private final int queueLimit;
+  private final boolean fair;
+  private final Executor executor;
+
+  private final Deque<Runnable> queue = new ArrayDeque<>();
+  private int active;
+  private long rejected;
+
+  private Admitting(int limit, int queueLimit, boolean fair, Executor executor) {
+    this.limit = limit;
+    this.queueLimit = queueLimit;
+    this.fair = fair;
+    this.executor = executor;
+  }
+
+  public static Admitting admitting(int limit, int queueLimit, boolean fair, Executor executor) {
+    check(limit > 0);
+    check(queueLimit >= 0);
+    check(executor != null);
+    return new Admitting(limit, queueLimit, fair, executor);
+  }
+
+  /**
+   * Registers this executor in platform MBean server as
+   * {@code com.perunlabs.mokosh:type=Admitting,name=<name>}.
+   */
+  public Admitting registerMBean(String name) {
+    Beans.registerMBean(this, "Admitting", name);
+    return this;
+  }
+
+  public void execute(Runnable task) {
+    check(task != null);
+    boolean queued;
+    synchronized (this) {
+      queued = active == limit;
+      if (queued) {
+        if (queue.size() == queueLimit) {
+          rejected++;
+          throw new RejectedExecutionException(format("%s is full", this));
+        }
+        queue.addLast(task);
+      } else {
+        active++;
+      }
+    }
+    if (queued) {
+      if (task instanceof Withdrawable) {
+        ((Withdrawable) task).onWithdraw(() -> withdraw(task));
+      }
+      return;
+    }
+    try {
+      admit(task);
+    } catch (RejectedExecutionException e) {
+      synchronized (this) {
+        rejected++;
+      }
+      admitNext();
+      throw e;
+    } catch (RuntimeException | Error e) {
+      admitNext();
+      throw e;
+    }
+  }
+
+  private void admit(Runnable task) {
+    executor.execute(() -> {
+      try {
+        task.run();
+      } finally {
+        admitNext();
+      }
+    });
+  }
+
+  /**
+   * Runs in thread of task that just finished, so task rejected by underlying executor is not
+   * thrown there, but rejected and skipped. Runnings of {@link Supplying} complete with failure.
+   */
+  private void admitNext() {
+    while (true) {
+      Runnable next;
+      synchronized (this) {
+        next = fair
+            ? queue.pollFirst()
+            : queue.pollLast();
+        if (next == null) {
+          active--;
+          return;
+        }
+      }
+      try {
+        admit(next);
+        return;
+      } catch (RejectedExecutionException e) {
+        synchronized (this) {
+          rejected++;
+        }
+        if (next instanceof Rejectable) {
+          ((Rejectable) next).reject(e);
+        }
+      }
+    }
+  }
+
+  private synchronized void withdraw(Runnable task) {
+    queue.remove(task);
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public synchronized int getActive() {
+    return active;
+  }
+
+  public synchronized int getQueued() {
+    return queue.size();
+  }
+
+  public synchronized long getRejected() {
+    return rejected;
+  }
+
+  public String toString() {
+    return format("admitting(%s, %s, %s, %s)", limit, queueLimit, fair, executor);
+  }
+}
@@ -0,0 +1,11 @@
+package com.perunlabs.mokosh.running;
+
+public interface AdmittingMXBean {
+  int getLimit();
+
+  int getActive();
+
+  int getQueued();
+
+  long getRejected();
+}
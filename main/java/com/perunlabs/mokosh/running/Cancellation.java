@@ -0,0 +1,74 @@
+package com.perunlabs.mokosh.running;
+
+import static com.perunlabs.mokosh.AbortException.aborted;
+
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+
+/**
+ * Cancellation token of {@link Running}. Every execution started by {@link Supplying} has its own
+ * token that is cancelled when execution is aborted. Unlike interruption, token stays cancelled so
+ * it can be checked by code running on shared threads.
+ */
+public class Cancellation {
+  private static final Cancellation never = new Cancellation();
+  private static final ThreadLocal<Cancellation> current = new ThreadLocal<>();
+
+  private volatile boolean cancelled;
+
+  private Cancellation() {}
+
+  public static Cancellation cancellation() {
+    return new Cancellation();
+  }
+
+  /**
+   * @return token of execution run by current thread or token that is never cancelled
+   */
+  public static Cancellation current() {
+    Cancellation cancellation = current.get();
+    return cancellation == null
+        ? never
+        : cancellation;
+  }
+
+  /**
+   * Cheap enough to be called at every chunk of work.
+   *
+   * @throws AbortException
+   *           preallocated one, if token of current execution is cancelled or thread was
+   *           interrupted
+   */
+  public static void abortIfCancelled() {
+    if (current().cancelled || Thread.interrupted()) {
+      throw aborted();
+    }
+  }
+
+  static <T> Supplier<T> within(Cancellation cancellation, Supplier<T> code) {
+    return () -> {
+      Cancellation previous = current.get();
+      current.set(cancellation);
+      try {
+        return code.get();
+      } finally {
+        if (previous == null) {
+          current.remove();
+        } else {
+          current.set(previous);
+        }
+      }
+    };
+  }
+
+  public void cancel() {
+    if (this != never) {
+      cancelled = true;
+    }
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+}
@@ -0,0 +1,186 @@
+package com.perunlabs.mokosh.running;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.common.Lambdas.evaluate;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+
+/**
+ * Running completed by callback instead of by thread. Bridges {@link Running} with
+ * {@link CompletableFuture} and implements {@link Running#map(Function)} and
+ * {@link Running#compose(Function)}.
+ */
+public class Completing<T> implements Running<T> {
+  private final CompletableFuture<Supplier<T>> completed = new CompletableFuture<>();
+  private final Runnable aborting;
+  private volatile boolean aborted;
+
+  Completing(Runnable aborting) {
+    this.aborting = aborting;
+  }
+
+  public static <T> Running<T> completed(Supplier<T> result) {
+    check(result != null);
+    Completing<T> completing = new Completing<>(() -> {});
+    completing.complete(result);
+    return completing;
+  }
+
+  public static <T> Running<T> completing(CompletionStage<T> stage) {
+    check(stage != null);
+    CompletableFuture<T> future = stage.toCompletableFuture();
+    Completing<T> completing = new Completing<T>(() -> future.cancel(true)) {
+      public String toString() {
+        return format("completing(%s)", stage);
+      }
+    };
+    future.whenComplete((returned, thrown) -> completing.complete(thrown == null
+        ? () -> returned
+        : () -> {
+          throw unwrap(thrown);
+        }));
+    return completing;
+  }
+
+  /**
+   * @return future completed with result of running. Cancelling future aborts running.
+   */
+  public static <T> CompletableFuture<T> future(Running<T> running) {
+    check(running != null);
+    CompletableFuture<T> future = new CompletableFuture<T>() {
+      public boolean cancel(boolean mayInterruptIfRunning) {
+        running.abort();
+        return super.cancel(mayInterruptIfRunning);
+      }
+    };
+    running.onComplete(result -> {
+      try {
+        future.complete(result.get());
+      } catch (RuntimeException | Error e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  static <T, R> Running<R> mapping(Running<T> running, Function<? super T, ? extends R> function) {
+    check(function != null);
+    Completing<R> mapping = new Completing<R>(running::abort) {
+      public String toString() {
+        return format("%s.map(%s)", running, function);
+      }
+    };
+    running.onComplete(result -> mapping.complete(evaluate(() -> function.apply(result.get()))));
+    return mapping;
+  }
+
+  static <T, R> Running<R> composing(Running<T> running,
+      Function<? super T, ? extends Running<R>> function) {
+    check(function != null);
+    AtomicReference<Running<R>> composed = new AtomicReference<>();
+    Completing<R> composing = new Completing<R>(() -> {
+      running.abort();
+      Running<R> next = composed.get();
+      if (next != null) {
+        next.abort();
+      }
+    }) {
+      public String toString() {
+        return format("%s.compose(%s)", running, function);
+      }
+    };
+    running.onComplete(result -> {
+      Running<R> next;
+      try {
+        next = function.apply(result.get());
+        check(next != null);
+      } catch (RuntimeException | Error e) {
+        composing.complete(() -> {
+          throw e;
+        });
+        return;
+      }
+      composed.set(next);
+      if (composing.aborted) {
+        next.abort();
+      }
+      next.onComplete(composing::complete);
+    });
+    return composing;
+  }
+
+  boolean complete(Supplier<T> result) {
+    return completed.complete(result);
+  }
+
+  public Supplier<T> await() {
+    try {
+      return completed.get();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public Optional<Supplier<T>> await(Duration timeout) {
+    check(timeout != null);
+    try {
+      return Optional.of(completed.get(timeout.toNanos(), NANOSECONDS));
+    } catch (TimeoutException e) {
+      return Optional.empty();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public Running<T> abort() {
+    if (!completed.isDone()) {
+      aborted = true;
+      aborting.run();
+    }
+    return this;
+  }
+
+  public boolean isRunning() {
+    return !completed.isDone();
+  }
+
+  public Running<T> onComplete(Consumer<Supplier<T>> callback) {
+    check(callback != null);
+    completed.thenAccept(callback);
+    return this;
+  }
+
+  private static RuntimeException unwrap(Throwable thrown) {
+    Throwable cause = thrown instanceof CompletionException && thrown.getCause() != null
+        ? thrown.getCause()
+        : thrown;
+    if (cause instanceof CancellationException) {
+      return new AbortException(cause);
+    } else if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    } else {
+      return new CompletionException(cause);
+    }
+  }
+}
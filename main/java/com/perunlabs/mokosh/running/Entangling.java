@@ -1,23 +1,33 @@
 package com.perunlabs.mokosh.running;
 
 import static com.perunlabs.mokosh.MokoshException.check;
-import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.running.Completing.completed;
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.joining;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.perunlabs.mokosh.AbortException;
 
+/**
+ * Completes when all runnings complete or as soon as any of them fails. First failure aborts all
+ * other runnings and becomes result of entangling.
+ */
 public class Entangling<T> implements Running<T> {
   private final Running<T> resulting;
   private final List<Running<?>> allRunnings;
+  private final Completing<T> entangled;
 
   private Entangling(Running<T> resulting, List<Running<?>> allRunnings) {
     this.resulting = resulting;
     this.allRunnings = allRunnings;
+    this.entangled = new Completing<>(this::abort);
   }
 
   public static <T> Running<T> entangle(Running<T> resulting, Running<?>... runnings) {
@@ -27,25 +37,59 @@ public class Entangling<T> implements Running<T> {
     allRunnings.add(resulting);
     allRunnings.addAll(asList(runnings));
     check(!allRunnings.contains(null));
-    return new Entangling<>(resulting, allRunnings);
+    return new Entangling<>(resulting, allRunnings).listen();
   }
 
   public static Running<Void> entangle(List<? extends Running<?>> runnings) {
     check(runnings != null);
     List<Running<?>> allRunnings = new ArrayList<>(runnings);
     check(!allRunnings.contains(null));
-    Running<Void> resulting = supplying(() -> {});
-    return new Entangling<>(resulting, allRunnings);
+    Running<Void> resulting = completed(() -> null);
+    return new Entangling<>(resulting, allRunnings).listen();
+  }
+
+  private Entangling<T> listen() {
+    AtomicInteger remaining = new AtomicInteger(allRunnings.size());
+    if (allRunnings.isEmpty()) {
+      entangled.complete(resulting.await());
+    }
+    for (Running<?> running : allRunnings) {
+      running.onComplete(result -> {
+        try {
+          result.get();
+        } catch (RuntimeException | Error e) {
+          if (entangled.complete(() -> {
+            throw e;
+          })) {
+            abort();
+          }
+          return;
+        }
+        if (remaining.decrementAndGet() == 0) {
+          entangled.complete(resulting.await());
+        }
+      });
+    }
+    return this;
   }
 
   public Supplier<T> await() {
     try {
-      allRunnings.forEach(Running::await);
+      return entangled.await();
+    } catch (AbortException e) {
+      abort();
+      throw e;
+    }
+  }
+
+  public Optional<Supplier<T>> await(Duration timeout) {
+    check(timeout != null);
+    try {
+      return entangled.await(timeout);
     } catch (AbortException e) {
       abort();
       throw e;
     }
-    return resulting.await();
   }
 
   public Running<T> abort() {
@@ -58,6 +102,11 @@ public class Entangling<T> implements Running<T> {
         .anyMatch(Running::isRunning);
   }
 
+  public Running<T> onComplete(Consumer<Supplier<T>> callback) {
+    entangled.onComplete(callback);
+    return this;
+  }
+
   public String toString() {
     return allRunnings.stream()
         .map(Object::toString)
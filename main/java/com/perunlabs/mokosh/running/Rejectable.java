@@ -0,0 +1,10 @@
+package com.perunlabs.mokosh.running;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Task that can be told it will never run, so it can complete its running with failure.
+ */
+interface Rejectable {
+  void reject(RejectedExecutionException exception);
+}
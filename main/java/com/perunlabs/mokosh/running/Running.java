@@ -1,5 +1,18 @@
 package com.perunlabs.mokosh.running;
 
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.common.Timeouts.schedule;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import com.perunlabs.mokosh.AbortException;
@@ -20,6 +33,28 @@ public interface Running<T> {
    */
   Supplier<T> await();
 
+  /**
+   * Blocks until execution is completed or aborted, but not longer than timeout.
+   *
+   * @return result of execution or empty if timeout elapsed first
+   * @throws AbortException
+   *           if waiting thread was interrupted
+   */
+  default Optional<Supplier<T>> await(Duration timeout) {
+    check(timeout != null);
+    CompletableFuture<Supplier<T>> completed = new CompletableFuture<>();
+    onComplete(completed::complete);
+    try {
+      return Optional.of(completed.get(timeout.toNanos(), TimeUnit.NANOSECONDS));
+    } catch (TimeoutException e) {
+      return Optional.empty();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   /**
    * Tries to abort underlying execution.
    *
@@ -32,4 +67,44 @@ public interface Running<T> {
    * @return true if execution is still running, false if it is completed or aborted
    */
   boolean isRunning();
+
+  /**
+   * Registers callback that is called with result of execution once it is completed or aborted.
+   * Callback is called by thread that completed execution or immediately by calling thread if
+   * execution is already completed.
+   *
+   * Default implementation dedicates separate execution to awaiting, implementations should
+   * override it with non-blocking one.
+   */
+  default Running<T> onComplete(Consumer<Supplier<T>> callback) {
+    check(callback != null);
+    supplying(() -> callback.accept(await()));
+    return this;
+  }
+
+  /**
+   * Aborts execution if it is not completed within timeout.
+   */
+  default Running<T> abortAfter(Duration timeout) {
+    check(timeout != null);
+    ScheduledFuture<?> aborting = schedule(timeout, this::abort);
+    onComplete(result -> aborting.cancel(false));
+    return this;
+  }
+
+  /**
+   * @return running completed when this one completes, with result converted by function.
+   *         Aborting it aborts this running.
+   */
+  default <R> Running<R> map(Function<? super T, ? extends R> function) {
+    return Completing.mapping(this, function);
+  }
+
+  /**
+   * @return running completed when running returned by function (applied to result of this
+   *         running) completes. Aborting it aborts both runnings.
+   */
+  default <R> Running<R> compose(Function<? super T, ? extends Running<R>> function) {
+    return Completing.composing(this, function);
+  }
 }
@@ -0,0 +1,23 @@
+package com.perunlabs.mokosh.running;
+
+import static java.lang.String.format;
+
+import java.time.Instant;
+
+public class RunningEvent {
+  public final Running<?> running;
+  public final String description;
+  public final Instant time;
+  public final long nanoTime;
+
+  RunningEvent(Running<?> running, String description) {
+    this.running = running;
+    this.description = description;
+    this.time = Instant.now();
+    this.nanoTime = System.nanoTime();
+  }
+
+  public String toString() {
+    return format("%s at %s", description, time);
+  }
+}
@@ -0,0 +1,34 @@
+package com.perunlabs.mokosh.running;
+
+/**
+ * Listens for lifecycle of runnings started by {@link Supplying}. Methods are called by threads
+ * that create, run and abort runnings, so they should be fast and must be thread safe. Exceptions
+ * thrown by listener are ignored.
+ */
+public interface RunningListener {
+  /**
+   * Running was created and handed to executor.
+   */
+  default void created(RunningEvent event) {}
+
+  /**
+   * Executor started running code.
+   */
+  default void started(RunningEvent event) {}
+
+  /**
+   * Code returned normally.
+   */
+  default void completed(RunningEvent event) {}
+
+  /**
+   * Code threw failure other than {@link com.perunlabs.mokosh.AbortException}.
+   */
+  default void failed(RunningEvent event, Throwable failure) {}
+
+  /**
+   * Code threw {@link com.perunlabs.mokosh.AbortException} or running was aborted before it
+   * started.
+   */
+  default void aborted(RunningEvent event) {}
+}
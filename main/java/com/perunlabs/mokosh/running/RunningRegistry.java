@@ -0,0 +1,152 @@
+package com.perunlabs.mokosh.running;
+
+import static java.lang.String.format;
+import static java.util.Comparator.comparingLong;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.perunlabs.mokosh.common.Beans;
+
+/**
+ * In-memory statistics of runnings, collected as {@link RunningListener} and exposed as
+ * {@link RunningRegistryMXBean}.
+ */
+public class RunningRegistry implements RunningListener, RunningRegistryMXBean {
+  private static final int slowestLimit = 10;
+
+  private final LongAdder created = new LongAdder();
+  private final LongAdder started = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder aborted = new LongAdder();
+  private final LongAdder totalQueueNanos = new LongAdder();
+  private final LongAdder totalRunNanos = new LongAdder();
+  private final Map<Running<?>, Long> queued = new ConcurrentHashMap<>();
+  private final Map<Running<?>, Long> running = new ConcurrentHashMap<>();
+  private final PriorityQueue<Run> slowest = new PriorityQueue<>(comparingLong(run -> run.nanos));
+
+  private RunningRegistry() {}
+
+  public static RunningRegistry runningRegistry() {
+    return new RunningRegistry();
+  }
+
+  /**
+   * Registers this registry in platform MBean server as
+   * {@code com.perunlabs.mokosh:type=RunningRegistry,name=<name>}.
+   */
+  public RunningRegistry registerMBean(String name) {
+    Beans.registerMBean(this, "RunningRegistry", name);
+    return this;
+  }
+
+  public void created(RunningEvent event) {
+    created.increment();
+    queued.put(event.running, event.nanoTime);
+  }
+
+  public void started(RunningEvent event) {
+    started.increment();
+    Long createdNanoTime = queued.remove(event.running);
+    if (createdNanoTime != null) {
+      totalQueueNanos.add(event.nanoTime - createdNanoTime);
+    }
+    running.put(event.running, event.nanoTime);
+  }
+
+  public void completed(RunningEvent event) {
+    completed.increment();
+    finished(event);
+  }
+
+  public void failed(RunningEvent event, Throwable failure) {
+    failed.increment();
+    finished(event);
+  }
+
+  public void aborted(RunningEvent event) {
+    aborted.increment();
+    finished(event);
+  }
+
+  private void finished(RunningEvent event) {
+    queued.remove(event.running);
+    Long startedNanoTime = running.remove(event.running);
+    if (startedNanoTime != null) {
+      long nanos = event.nanoTime - startedNanoTime;
+      totalRunNanos.add(nanos);
+      synchronized (slowest) {
+        if (slowest.size() < slowestLimit || slowest.peek().nanos < nanos) {
+          slowest.add(new Run(event.description, nanos));
+          if (slowest.size() > slowestLimit) {
+            slowest.poll();
+          }
+        }
+      }
+    }
+  }
+
+  public long getCreated() {
+    return created.sum();
+  }
+
+  public long getStarted() {
+    return started.sum();
+  }
+
+  public long getCompleted() {
+    return completed.sum();
+  }
+
+  public long getFailed() {
+    return failed.sum();
+  }
+
+  public long getAborted() {
+    return aborted.sum();
+  }
+
+  public long getQueued() {
+    return queued.size();
+  }
+
+  public long getRunning() {
+    return running.size();
+  }
+
+  public long getTotalQueueNanos() {
+    return totalQueueNanos.sum();
+  }
+
+  public long getTotalRunNanos() {
+    return totalRunNanos.sum();
+  }
+
+  public List<String> getSlowest() {
+    synchronized (slowest) {
+      return slowest.stream()
+          .sorted(comparingLong((Run run) -> run.nanos).reversed())
+          .map(Run::toString)
+          .collect(toList());
+    }
+  }
+
+  private static class Run {
+    final String description;
+    final long nanos;
+
+    Run(String description, long nanos) {
+      this.description = description;
+      this.nanos = nanos;
+    }
+
+    public String toString() {
+      return format("%s took %s ns", description, nanos);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.perunlabs.mokosh.running;
+
+import java.util.List;
+
+public interface RunningRegistryMXBean {
+  long getCreated();
+
+  long getStarted();
+
+  long getCompleted();
+
+  long getFailed();
+
+  long getAborted();
+
+  long getQueued();
+
+  long getRunning();
+
+  long getTotalQueueNanos();
+
+  long getTotalRunNanos();
+
+  /**
+   * @return descriptions and run times of slowest runnings, slowest first
+   */
+  List<String> getSlowest();
+}
@@ -0,0 +1,145 @@
+package com.perunlabs.mokosh.running;
+
+import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.common.Timeouts.deadline;
+import static com.perunlabs.mokosh.common.Timeouts.remaining;
+import static com.perunlabs.mokosh.running.Entangling.entangle;
+import static java.lang.String.format;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import com.perunlabs.mokosh.AbortException;
+
+/**
+ * Owns every {@link Running} started by {@link Supplying} in thread that opened scope, including
+ * runnings started by those runnings. Closing scope awaits all of them. First failure, timeout or
+ * interruption of closing thread aborts all of them.
+ *
+ * <pre>
+ * try (RunningScope scope = scope()) {
+ *   ...
+ * }
+ * </pre>
+ */
+public class RunningScope implements AutoCloseable {
+  private static final ThreadLocal<RunningScope> current = new ThreadLocal<>();
+
+  private final RunningScope parent;
+  private final Optional<Duration> timeout;
+  private final List<Running<?>> runnings = new ArrayList<>();
+  private boolean closed;
+
+  private RunningScope(RunningScope parent, Optional<Duration> timeout) {
+    this.parent = parent;
+    this.timeout = timeout;
+  }
+
+  public static RunningScope scope() {
+    return open(Optional.empty());
+  }
+
+  public static RunningScope scope(Duration timeout) {
+    check(timeout != null);
+    return open(Optional.of(timeout));
+  }
+
+  private static RunningScope open(Optional<Duration> timeout) {
+    RunningScope scope = new RunningScope(current.get(), timeout);
+    current.set(scope);
+    return scope;
+  }
+
+  static RunningScope current() {
+    return current.get();
+  }
+
+  /**
+   * Makes scope current for thread while it runs code.
+   */
+  static <T> Supplier<T> within(RunningScope scope, Supplier<T> code) {
+    return () -> {
+      RunningScope previous = current.get();
+      current.set(scope);
+      try {
+        return code.get();
+      } finally {
+        if (previous == null) {
+          current.remove();
+        } else {
+          current.set(previous);
+        }
+      }
+    };
+  }
+
+  void add(Running<?> running) {
+    boolean abort;
+    synchronized (this) {
+      abort = closed;
+      if (!closed) {
+        runnings.add(running);
+      }
+    }
+    if (abort) {
+      running.abort();
+    }
+  }
+
+  /**
+   * Aborts all runnings owned by this scope.
+   */
+  public RunningScope abort() {
+    snapshot(0).forEach(Running::abort);
+    return this;
+  }
+
+  /**
+   * Awaits all runnings owned by this scope.
+   *
+   * @throws RuntimeException
+   *           first failure of owned running
+   * @throws AbortException
+   *           if timeout elapsed or closing thread was interrupted
+   */
+  public void close() {
+    check(current.get() == this);
+    if (parent == null) {
+      current.remove();
+    } else {
+      current.set(parent);
+    }
+    long deadline = deadline(timeout.orElse(Duration.ZERO));
+    try {
+      int awaited = 0;
+      List<Running<?>> added;
+      while (!(added = snapshotOrClose(awaited)).isEmpty()) {
+        awaited += added.size();
+        Running<Void> all = entangle(added);
+        Supplier<Void> result = timeout.isPresent()
+            ? all.await(remaining(deadline)).orElseThrow(
+                () -> new AbortException(format("timeout %s elapsed", timeout.get())))
+            : all.await();
+        result.get();
+      }
+    } catch (RuntimeException | Error e) {
+      synchronized (this) {
+        closed = true;
+      }
+      abort();
+      throw e;
+    }
+  }
+
+  private synchronized List<Running<?>> snapshotOrClose(int from) {
+    closed = from == runnings.size();
+    return snapshot(from);
+  }
+
+  private synchronized List<Running<?>> snapshot(int from) {
+    return new ArrayList<>(runnings.subList(from, runnings.size()));
+  }
+}
@@ -1,62 +1,337 @@
 package com.perunlabs.mokosh.running;
 
 import static com.perunlabs.mokosh.MokoshException.check;
+import static com.perunlabs.mokosh.common.Collections.add;
 import static com.perunlabs.mokosh.common.Lambdas.asSupplier;
+import static com.perunlabs.mokosh.common.Lambdas.evaluate;
+import static com.perunlabs.mokosh.running.Admitting.admitting;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
-import java.util.concurrent.CountDownLatch;
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
 
+/**
+ * Runs code in parallel using {@link Executor}. By default every execution gets its own thread
+ * named after thread that started it. Static {@link #supplying(Supplier)} uses default instance
+ * that can be replaced with {@link #setDefault(Supplying)}, so all stages built on top of it run on
+ * chosen executor.
+ */
 public class Supplying {
   private static final AtomicInteger counter = new AtomicInteger(0);
+  private static final Supplying threadPerExecution = using(
+      runnable -> startThread(new Thread(runnable)));
+  private static volatile Supplying defaultSupplying = threadPerExecution;
+
+  private final Executor executor;
+  private final List<RunningListener> listeners;
+
+  private Supplying(Executor executor, List<RunningListener> listeners) {
+    this.executor = executor;
+    this.listeners = listeners;
+  }
+
+  public static Supplying using(Executor executor) {
+    check(executor != null);
+    return new Supplying(executor, new ArrayList<>());
+  }
+
+  /**
+   * Runs at most limit executions at once, each in its own thread. Executions over limit wait in
+   * fair queue. Use {@link Admitting} directly to bound queue or to read its metrics.
+   *
+   * Stages that need several concurrent executions (like two pumps of
+   * {@link com.perunlabs.mokosh.streaming.Processing}) may deadlock when limit is lower than that.
+   */
+  public static Supplying bounded(int limit) {
+    return using(admitting(limit, Integer.MAX_VALUE, true, threadPerExecution.executor));
+  }
+
+  public Executor executor() {
+    return executor;
+  }
+
+  /**
+   * @return copy of this supplying that notifies listener about lifecycle of every running
+   */
+  public Supplying listening(RunningListener listener) {
+    check(listener != null);
+    return new Supplying(executor, add(listener, listeners));
+  }
+
+  public static Supplying threadPerExecution() {
+    return threadPerExecution;
+  }
+
+  /**
+   * Runs every execution in its own virtual thread named the same way as by
+   * {@link #threadPerExecution()}. Virtual threads are looked up reflectively so library still
+   * runs on older java.
+   *
+   * @throws MokoshException
+   *           if virtual threads are not supported by running java
+   */
+  public static Supplying virtualThreadPerExecution() {
+    ThreadFactory factory = virtualThreadFactory();
+    return using(runnable -> startThread(factory.newThread(runnable)));
+  }
+
+  public static Supplying getDefault() {
+    return defaultSupplying;
+  }
+
+  public static void setDefault(Supplying supplying) {
+    check(supplying != null);
+    defaultSupplying = supplying;
+  }
 
   public static <T> Running<T> supplying(Supplier<T> code) {
     check(code != null);
-    CountDownLatch executedLatch = new CountDownLatch(1);
-    AtomicReference<Supplier<T>> executed = new AtomicReference<>();
-    Thread thread = new Thread(() -> {
-      try {
-        T returned = code.get();
-        executed.set(() -> returned);
-      } catch (RuntimeException | Error e) {
-        executed.set(() -> {
-          throw e;
-        });
-      } finally {
-        executedLatch.countDown();
-      }
-    });
+    return defaultSupplying.supply(code);
+  }
+
+  public static Running<Void> supplying(Runnable code) {
+    check(code != null);
+    return supplying(asSupplier(code));
+  }
+
+  /**
+   * @param description
+   *          describes running in {@link RunningEvent}s and in {@link Running#toString()}
+   */
+  public static <T> Running<T> supplying(Supplier<String> description, Supplier<T> code) {
+    return defaultSupplying.supply(description, code);
+  }
+
+  public static Running<Void> supplying(Supplier<String> description, Runnable code) {
+    return defaultSupplying.supply(description, code);
+  }
+
+  public <T> Running<T> supply(Supplier<T> code) {
+    check(code != null);
+    return supply(() -> format("supplying(%s)", code), code);
+  }
+
+  public Running<Void> supply(Runnable code) {
+    check(code != null);
+    return supply(asSupplier(code));
+  }
+
+  public <T> Running<T> supply(Supplier<String> description, Supplier<T> code) {
+    check(description != null);
+    check(code != null);
+    RunningScope scope = RunningScope.current();
+    Execution<T> execution = new Execution<>(description, listeners, scope == null
+        ? code
+        : RunningScope.within(scope, code));
+    execution.publish(RunningListener::created);
+    try {
+      executor.execute(execution);
+    } catch (RejectedExecutionException e) {
+      execution.reject(e);
+      throw e;
+    }
+    if (scope != null) {
+      scope.add(execution);
+    }
+    return execution;
+  }
+
+  public Running<Void> supply(Supplier<String> description, Runnable code) {
+    check(code != null);
+    return supply(description, asSupplier(code));
+  }
+
+  private static ThreadFactory virtualThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+          .getMethod("factory")
+          .invoke(builder);
+    } catch (InvocationTargetException e) {
+      throw new MokoshException("virtual threads are not supported", e.getCause());
+    } catch (ReflectiveOperationException e) {
+      throw new MokoshException("virtual threads are not supported", e);
+    }
+  }
+
+  private static void startThread(Thread thread) {
     thread.setName(format("%s-%s",
         Thread.currentThread().getName(),
         counter.getAndIncrement()));
     thread.start();
-    return new Running<T>() {
-      public Supplier<T> await() {
+  }
+
+  /**
+   * Executor threads may be reused, so thread is interrupted only while it executes code and
+   * interruption caused by abort is cleared before thread is given back.
+   */
+  private static class Execution<T> implements Runnable, Rejectable, Withdrawable, Running<T> {
+    private final Supplier<String> description;
+    private final List<RunningListener> listeners;
+    private final Supplier<T> code;
+    private final Cancellation cancellation = Cancellation.cancellation();
+    private final CompletableFuture<Supplier<T>> executed = new CompletableFuture<>();
+    private Thread thread;
+    private Runnable withdrawal;
+    private boolean started;
+    private boolean aborted;
+    private boolean interrupted;
+
+    private Execution(Supplier<String> description, List<RunningListener> listeners,
+        Supplier<T> code) {
+      this.description = description;
+      this.listeners = listeners;
+      this.code = Cancellation.within(cancellation, code);
+    }
+
+    public void run() {
+      synchronized (this) {
+        if (aborted || executed.isDone()) {
+          return;
+        }
+        started = true;
+        thread = Thread.currentThread();
+      }
+      publish(RunningListener::started);
+      Supplier<T> result = evaluate(code);
+      synchronized (this) {
+        thread = null;
+        if (interrupted) {
+          Thread.interrupted();
+        }
+      }
+      if (!listeners.isEmpty()) {
         try {
-          executedLatch.await();
-          return executed.get();
-        } catch (InterruptedException e) {
-          throw new AbortException(e);
+          result.get();
+          publish(RunningListener::completed);
+        } catch (AbortException e) {
+          publish(RunningListener::aborted);
+        } catch (RuntimeException | Error e) {
+          publish((listener, event) -> listener.failed(event, e));
         }
       }
+      executed.complete(result);
+    }
 
-      public Running<T> abort() {
-        thread.interrupt();
-        return this;
+    public void reject(RejectedExecutionException exception) {
+      synchronized (this) {
+        if (started || aborted || executed.isDone()) {
+          return;
+        }
       }
+      publish((listener, event) -> listener.failed(event, exception));
+      executed.complete(() -> {
+        throw exception;
+      });
+    }
 
-      public boolean isRunning() {
-        return executedLatch.getCount() > 0;
+    public void onWithdraw(Runnable withdrawal) {
+      synchronized (this) {
+        if (!aborted || started) {
+          this.withdrawal = withdrawal;
+          return;
+        }
       }
-    };
-  }
+      withdrawal.run();
+    }
 
-  public static Running<Void> supplying(Runnable code) {
-    check(code != null);
-    return supplying(asSupplier(code));
+    /**
+     * Listeners must not break execution, so exceptions they throw are ignored.
+     */
+    private void publish(BiConsumer<RunningListener, RunningEvent> notification) {
+      if (!listeners.isEmpty()) {
+        RunningEvent event = new RunningEvent(this, toString());
+        for (RunningListener listener : listeners) {
+          try {
+            notification.accept(listener, event);
+          } catch (RuntimeException e) {}
+        }
+      }
+    }
+
+    public Supplier<T> await() {
+      try {
+        return executed.get();
+      } catch (InterruptedException e) {
+        throw new AbortException(e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    public Optional<Supplier<T>> await(Duration timeout) {
+      check(timeout != null);
+      try {
+        return Optional.of(executed.get(timeout.toNanos(), NANOSECONDS));
+      } catch (TimeoutException e) {
+        return Optional.empty();
+      } catch (InterruptedException e) {
+        throw new AbortException(e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    /**
+     * Listeners and completion callbacks are called after lock is released, so they can use this
+     * running from other threads.
+     */
+    public Running<T> abort() {
+      Runnable withdrawn;
+      synchronized (this) {
+        if (executed.isDone() || aborted) {
+          return this;
+        }
+        aborted = true;
+        cancellation.cancel();
+        if (thread != null) {
+          interrupted = true;
+          thread.interrupt();
+        }
+        if (started) {
+          return this;
+        }
+        withdrawn = withdrawal;
+      }
+      if (withdrawn != null) {
+        withdrawn.run();
+      }
+      publish(RunningListener::aborted);
+      executed.complete(() -> {
+        throw new AbortException();
+      });
+      return this;
+    }
+
+    public boolean isRunning() {
+      return !executed.isDone();
+    }
+
+    public Running<T> onComplete(Consumer<Supplier<T>> callback) {
+      check(callback != null);
+      executed.thenAccept(callback);
+      return this;
+    }
+
+    public String toString() {
+      return description.get();
+    }
   }
 }
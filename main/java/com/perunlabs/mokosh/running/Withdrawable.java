@@ -0,0 +1,11 @@
+package com.perunlabs.mokosh.running;
+
+/**
+ * Task that can tell queue of executor to drop it, once it is aborted before it started.
+ */
+interface Withdrawable {
+  /**
+   * Withdrawal is called at most once, immediately if task is already aborted.
+   */
+  void onWithdraw(Runnable withdrawal);
+}
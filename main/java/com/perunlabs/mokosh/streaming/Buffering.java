@@ -10,6 +10,9 @@ import java.io.InputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.perunlabs.mokosh.running.Running;
@@ -26,10 +29,11 @@ public class Buffering extends Streaming {
   public static Streaming buffering(int size, InputStream input) {
     check(size > 0);
     check(input != null);
+    Supplier<String> description = () -> format("buffering(%s, %s)", size, input);
     try {
       PipedInputStream pipedInput = new PipedInputStream(size);
       PipedOutputStream pipedOutput = new PipedOutputStream(pipedInput);
-      Running<Void> pumping = supplying(() -> {
+      Running<Void> pumping = supplying(description, () -> {
         try {
           pump(input, pipedOutput);
           input.close();
@@ -40,7 +44,7 @@ public class Buffering extends Streaming {
       });
       return new Buffering(pumping, pipedInput) {
         public String toString() {
-          return format("buffering(%s, %s)", size, input);
+          return description.get();
         }
       };
     } catch (IOException e) {
@@ -52,6 +56,10 @@ public class Buffering extends Streaming {
     return pumping.await();
   }
 
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return pumping.await(timeout);
+  }
+
   public Running<Void> abort() {
     return pumping.abort();
   }
@@ -60,6 +68,11 @@ public class Buffering extends Streaming {
     return pumping.isRunning();
   }
 
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    pumping.onComplete(callback);
+    return this;
+  }
+
   public int read() throws IOException {
     return input.read();
   }
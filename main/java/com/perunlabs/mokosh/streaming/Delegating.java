@@ -5,6 +5,9 @@ import static java.lang.String.format;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.perunlabs.mokosh.running.Running;
@@ -28,6 +31,10 @@ public class Delegating extends Streaming {
     return running.await();
   }
 
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    return running.await(timeout);
+  }
+
   public Running<Void> abort() {
     return running.abort();
   }
@@ -36,6 +43,11 @@ public class Delegating extends Streaming {
     return running.isRunning();
   }
 
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    running.onComplete(callback);
+    return this;
+  }
+
   public int read() throws IOException {
     return input.read();
   }
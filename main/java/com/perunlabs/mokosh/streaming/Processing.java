@@ -2,17 +2,23 @@ package com.perunlabs.mokosh.streaming;
 
 import static com.perunlabs.mokosh.MokoshException.check;
 import static com.perunlabs.mokosh.common.Streams.pump;
+import static com.perunlabs.mokosh.common.Timeouts.deadline;
+import static com.perunlabs.mokosh.common.Timeouts.remaining;
 import static com.perunlabs.mokosh.running.Entangling.entangle;
 import static com.perunlabs.mokosh.running.Supplying.supplying;
 import static java.lang.String.format;
 import static java.lang.String.join;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.perunlabs.mokosh.AbortException;
@@ -46,9 +52,10 @@ public class Processing extends Streaming {
       throw new UncheckedIOException(e);
     }
 
+    String description = format("processing(%s)", join(" ", command.command));
     AtomicBoolean broken = new AtomicBoolean(false);
 
-    Running<Void> pumpingStdin = supplying(() -> {
+    Running<Void> pumpingStdin = supplying(() -> description + " stdin", () -> {
       try {
         OutputStream processStdin = process.getOutputStream();
         pump(stdin, processStdin);
@@ -68,7 +75,7 @@ public class Processing extends Streaming {
         throw new UncheckedIOException(e);
       }
     });
-    Running<Void> pumpingStderr = supplying(() -> {
+    Running<Void> pumpingStderr = supplying(() -> description + " stderr", () -> {
       try {
         InputStream processStderr = process.getInputStream();
         pump(processStderr, stderr);
@@ -76,14 +83,17 @@ public class Processing extends Streaming {
           stderr.close();
         }
         processStderr.close();
+        process.waitFor();
       } catch (IOException e) {
         throw new UncheckedIOException(e);
+      } catch (InterruptedException e) {
+        throw new AbortException(e);
       }
     });
     Running<Void> pumping = entangle(pumpingStdin, pumpingStderr);
     return new Processing(pumping, process) {
       public String toString() {
-        return format("processing(%s)", join(" ", command.command));
+        return description;
       }
     };
   }
@@ -99,6 +109,37 @@ public class Processing extends Streaming {
       throw new AbortException(e);
     }
     pumping.await();
+    return exitStatus();
+  }
+
+  public Optional<Supplier<Void>> await(Duration timeout) {
+    check(timeout != null);
+    long deadline = deadline(timeout);
+    try {
+      if (!process.waitFor(remaining(deadline).toNanos(), NANOSECONDS)) {
+        return Optional.empty();
+      }
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+    if (!pumping.await(remaining(deadline)).isPresent()) {
+      return Optional.empty();
+    }
+    return Optional.of(exitStatus());
+  }
+
+  /**
+   * Pumping completes after process exits, so no thread is needed to wait for process. Process can
+   * be still alive only if pumping was aborted.
+   */
+  public Running<Void> onComplete(Consumer<Supplier<Void>> callback) {
+    pumping.onComplete(result -> callback.accept(process.isAlive()
+        ? result
+        : exitStatus()));
+    return this;
+  }
+
+  private Supplier<Void> exitStatus() {
     int exitStatus = process.exitValue();
     return () -> {
       if (exitStatus != 0) {
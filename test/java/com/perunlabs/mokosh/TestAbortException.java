@@ -1,6 +1,7 @@
 package com.perunlabs.mokosh;
 
 import static com.perunlabs.mokosh.AbortException.abortIfInterrupted;
+import static com.perunlabs.mokosh.AbortException.aborted;
 import static com.perunlabs.mokosh.running.Supplying.supplying;
 import static org.testory.Testory.given;
 import static org.testory.Testory.thenReturned;
@@ -33,4 +34,16 @@ public class TestAbortException {
     when(() -> abortIfInterrupted());
     thenReturned();
   }
+
+  @Test
+  public void aborted_is_preallocated() {
+    when(aborted());
+    thenReturned(aborted());
+  }
+
+  @Test
+  public void aborted_has_no_stack_trace() {
+    when(aborted().getStackTrace().length);
+    thenReturned(0);
+  }
 }
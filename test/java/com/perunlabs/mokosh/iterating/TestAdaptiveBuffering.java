@@ -0,0 +1,203 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.AdaptiveBuffering.adaptiveBuffering;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestAdaptiveBuffering {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private AdaptiveBuffering<Foo> buffering;
+  private AdaptiveBuffering<Integer> integers;
+  private Foo a, b, c;
+  private Iterator<Foo> iterator;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @Test
+  public void pipes_many_elements() {
+    given(buffering = adaptiveBuffering(1, 4, asList(a, b, c).iterator()));
+    when(collectToList(buffering));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void pipes_elements_while_resizing() {
+    given(integers = adaptiveBuffering(1, 64, iterate(0, i -> i + 1).limit(10_000).iterator()));
+    when(collectToList(integers));
+    thenReturned(collectToList(iterate(0, i -> i + 1).limit(10_000).iterator()));
+  }
+
+  @Test
+  public void starts_with_min_limit() {
+    given(buffering = adaptiveBuffering(2, 8, iterate(a, i -> i).iterator()));
+    given(sleepSeconds(0.1));
+    when(buffering.getBuffered());
+    thenReturned(2);
+    then(buffering.getLimit() == 2);
+  }
+
+  @Test
+  public void grows_when_producer_and_consumer_take_turns() {
+    given(integers = adaptiveBuffering(1, 8, bursts()));
+    given(nextElements(integers, 32));
+    when(integers.getResizes() > 0);
+    thenReturned(true);
+  }
+
+  @Test
+  public void shrinks_when_only_producer_is_blocked() {
+    given(integers = adaptiveBuffering(1, 4, bursts()));
+    given(nextElements(integers, 32));
+    given(nextElements(integers, 10, 0.03));
+    when(integers.getLimit());
+    thenReturned(1);
+  }
+
+  @Test
+  public void does_not_grow_above_max_limit() {
+    given(integers = adaptiveBuffering(1, 2, bursts()));
+    given(nextElements(integers, 32));
+    when(integers.getLimit() <= 2);
+    thenReturned(true);
+  }
+
+  @Test
+  public void measures_blocked_producer() {
+    given(buffering = adaptiveBuffering(1, 1, iterate(a, i -> i).iterator()));
+    given(sleepSeconds(0.1));
+    given(buffering.next());
+    when(buffering.getProducerBlockedNanos() > 0);
+    thenReturned(true);
+  }
+
+  @Test
+  public void measures_starved_consumer() {
+    given(buffering = adaptiveBuffering(1, 1, iterate(a, i -> {
+      sleepSeconds(0.1);
+      return i;
+    }).iterator()));
+    given(buffering.next());
+    given(buffering.next());
+    when(buffering.getConsumerStarvedNanos() > 0);
+    thenReturned(true);
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(buffering = adaptiveBuffering(1, 4, asList(a).iterator()));
+    given(sleepSeconds(0.1));
+    when(buffering.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void aborts_awaiting() {
+    given(buffering = adaptiveBuffering(1, 4, asList(a, b, c).iterator()));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> buffering.await());
+    thenThrown(AbortException.class);
+    then(buffering.isRunning());
+  }
+
+  @Test
+  public void aborts_running_while_iterating() {
+    given(buffering = adaptiveBuffering(1, 4, iterate(a, i -> i).iterator()));
+    when(buffering.abort().await());
+    thenReturned();
+    then(!buffering.isRunning());
+  }
+
+  @Test
+  public void has_no_next_when_aborted() {
+    given(buffering = adaptiveBuffering(1, 4, iterate(a, i -> i).iterator()));
+    given(buffering.abort().await());
+    given(collectToList(buffering));
+    when(buffering.hasNext());
+    thenReturned(false);
+  }
+
+  @Test
+  public void drains_available_elements() {
+    given(buffering = adaptiveBuffering(3, 3, asList(a, b, c).iterator()));
+    given(sleepSeconds(0.1));
+    when(buffering.nextBatch(10));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(buffering = adaptiveBuffering(1, 4, iterator));
+    when(buffering.toString());
+    thenReturned(format("adaptiveBuffering(%s, %s, %s)", 1, 4, iterator));
+  }
+
+  @Test
+  public void checks_that_min_limit_is_positive() {
+    when(() -> adaptiveBuffering(0, 4, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_max_limit_is_not_below_min_limit() {
+    when(() -> adaptiveBuffering(4, 2, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_iterator_is_not_null() {
+    when(() -> adaptiveBuffering(1, 4, null));
+    thenThrown(MokoshException.class);
+  }
+
+  /**
+   * Produces elements in bursts of four separated by pauses.
+   */
+  private static Iterator<Integer> bursts() {
+    return iterate(0, i -> {
+      if (i % 4 == 3) {
+        sleepSeconds(0.01);
+      }
+      return i + 1;
+    }).iterator();
+  }
+
+  private static Void nextElements(Iterator<?> iterator, int count) {
+    return nextElements(iterator, count, 0);
+  }
+
+  private static Void nextElements(Iterator<?> iterator, int count, double pauseSeconds) {
+    for (int i = 0; i < count; i++) {
+      sleepSeconds(pauseSeconds);
+      iterator.next();
+    }
+    return null;
+  }
+
+  private static class Foo {}
+}
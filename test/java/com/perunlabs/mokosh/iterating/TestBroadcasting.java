@@ -0,0 +1,259 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.Broadcasting.broadcast;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.spy;
+import static org.testory.Testory.thenCalledTimes;
+import static org.testory.Testory.thenEqual;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+import com.perunlabs.mokosh.running.Running;
+
+public class TestBroadcasting {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Foo a, b, c;
+  private Iterator<Foo> iterator;
+  private Iterable<Foo> broadcasting;
+  private Iterable<Integer> integers;
+  private Broadcasting<Foo> dynamic;
+  private Subscription<Foo> subscription;
+  private Running<?> runningA, runningB, runningC;
+  private List<Integer> expected;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @After
+  public void after() {
+    runningA.abort();
+    runningB.abort();
+    runningC.abort();
+  }
+
+  @Test
+  public void broadcasts_once() {
+    given(broadcasting = broadcast(1, 1, asList(a, b, c).iterator()));
+    when(collectToList(broadcasting.iterator()));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void broadcasts_twice() {
+    given(broadcasting = broadcast(2, 1, asList(a, b, c).iterator()));
+    given(runningA = supplying(() -> collectToList(broadcasting.iterator())));
+    given(runningB = supplying(() -> collectToList(broadcasting.iterator())));
+    when(() -> {
+      runningA.await();
+      runningB.await();
+    });
+    thenEqual(runningA.await().get(), asList(a, b, c));
+    thenEqual(runningB.await().get(), asList(a, b, c));
+  }
+
+  @Test
+  public void broadcasts_many_elements() {
+    given(expected = collectToList(iterate(0, i -> i + 1).limit(10_000).iterator()));
+    given(integers = broadcast(3, 64, expected.iterator()));
+    given(runningA = supplying(() -> collectToList(integers.iterator())));
+    given(runningB = supplying(() -> collectToList(integers.iterator())));
+    given(runningC = supplying(() -> collectToList(integers.iterator())));
+    when(() -> {
+      runningA.await();
+      runningB.await();
+      runningC.await();
+    });
+    thenEqual(runningA.await().get(), expected);
+    thenEqual(runningB.await().get(), expected);
+    thenEqual(runningC.await().get(), expected);
+  }
+
+  @Test
+  public void iterator_runs_ahead_of_slowest_within_lag() {
+    given(broadcasting = broadcast(2, 3, asList(a, b, c).iterator()));
+    given(broadcasting.iterator());
+    when(collectToList(broadcasting.iterator()));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void iterator_blocks_when_ahead_of_slowest_by_lag() {
+    given(broadcasting = broadcast(2, 2, asList(a, b, c).iterator()));
+    given(runningA = supplying(() -> collectToList(broadcasting.iterator())));
+    given(sleepSeconds(0.1));
+    when(runningA.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void slowest_iterator_releases_blocked_one() {
+    given(broadcasting = broadcast(2, 1, asList(a, b, c).iterator()));
+    given(runningA = supplying(() -> collectToList(broadcasting.iterator())));
+    given(sleepSeconds(0.1));
+    when(collectToList(broadcasting.iterator()));
+    thenReturned(asList(a, b, c));
+    thenEqual(runningA.await().get(), asList(a, b, c));
+  }
+
+  @Test
+  public void pulls_each_element_once() {
+    given(iterator = spy(asList(a, b, c).iterator()));
+    given(broadcasting = broadcast(2, 2, iterator));
+    given(runningA = supplying(() -> collectToList(broadcasting.iterator())));
+    given(runningB = supplying(() -> collectToList(broadcasting.iterator())));
+    when(() -> {
+      runningA.await();
+      runningB.await();
+    });
+    thenCalledTimes(3, iterator).next();
+  }
+
+  @Test
+  public void closed_iterator_stops_gating() {
+    given(broadcasting = broadcast(2, 1, asList(a, b, c).iterator()));
+    given(subscription = (Subscription<Foo>) broadcasting.iterator());
+    given(subscription).close();
+    when(collectToList(broadcasting.iterator()));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void closing_releases_blocked_iterator() {
+    given(dynamic = broadcast(1, asList(a, b, c).iterator()));
+    given(subscription = dynamic.subscribe());
+    given(runningA = supplying(() -> collectToList(dynamic.subscribe())));
+    given(sleepSeconds(0.1));
+    when(() -> subscription.close());
+    thenEqual(runningA.await().get(), asList(a, b, c));
+  }
+
+  @Test
+  public void closed_subscription_has_no_next() {
+    given(dynamic = broadcast(1, asList(a, b, c).iterator()));
+    given(subscription = dynamic.subscribe());
+    given(subscription).close();
+    when(subscription.hasNext());
+    thenReturned(false);
+  }
+
+  @Test
+  public void late_subscriber_starts_at_head() {
+    given(dynamic = broadcast(2, asList(a, b, c).iterator()));
+    given(subscription = dynamic.subscribe());
+    given(subscription.next());
+    when(collectToList(dynamic.subscribe()));
+    thenReturned(asList(b, c));
+  }
+
+  @Test
+  public void subscribes_any_number_of_iterators() {
+    given(dynamic = broadcast(3, asList(a, b, c).iterator()));
+    given(dynamic.subscribe()).close();
+    given(dynamic.subscribe()).close();
+    given(dynamic.subscribe()).close();
+    when(collectToList(dynamic.iterator()));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void cannot_get_more_iterators_than_count() {
+    given(broadcasting = broadcast(2, 1, iterator));
+    given(broadcasting.iterator());
+    given(broadcasting.iterator());
+    when(() -> broadcasting.iterator());
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void aborts_when_blocked_on_has_next() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(broadcasting = broadcast(2, 1, iterator));
+    given(runningA = supplying(() -> collectToList(broadcasting.iterator())));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> runningA.await());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void aborts_when_blocked_on_slowest() {
+    given(broadcasting = broadcast(2, 1, asList(a, b, c).iterator()));
+    given(runningA = supplying(() -> collectToList(broadcasting.iterator())));
+    given(sleepSeconds(0.1));
+    given(runningA.abort());
+    when(() -> runningA.await().get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(broadcasting = broadcast(2, 3, iterator));
+    when(broadcasting.toString());
+    thenReturned(format("broadcast(%s, %s, %s)", 2, 3, iterator));
+  }
+
+  @Test
+  public void iterator_implements_to_string() {
+    given(broadcasting = broadcast(1, 3, iterator));
+    when(broadcasting.iterator().toString());
+    thenReturned(format("broadcast(%s, %s, %s).iterator()", 1, 3, iterator));
+  }
+
+  @Test
+  public void dynamic_implements_to_string() {
+    given(dynamic = broadcast(3, iterator));
+    when(dynamic.toString());
+    thenReturned(format("broadcast(%s, %s)", 3, iterator));
+  }
+
+  @Test
+  public void dynamic_checks_if_lag_is_positive() {
+    when(() -> broadcast(0, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_if_count_is_positive() {
+    when(() -> broadcast(0, 1, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_if_lag_is_positive() {
+    when(() -> broadcast(1, 0, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_if_iterator_is_not_null() {
+    when(() -> broadcast(1, 1, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static class Foo {}
+}
@@ -0,0 +1,149 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.Budget.budget;
+import static com.perunlabs.mokosh.iterating.Budget.unlimited;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestBudget {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Budget budget, defaultBudget;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(defaultBudget = Budget.getDefault());
+  }
+
+  @After
+  public void after() {
+    Budget.setDefault(defaultBudget);
+  }
+
+  @Test
+  public void counts_acquired_weight() {
+    given(budget = budget(10));
+    given(budget).acquire(3);
+    given(budget).acquire(4);
+    when(budget.getUsed());
+    thenReturned(7L);
+  }
+
+  @Test
+  public void counts_released_weight() {
+    given(budget = budget(10));
+    given(budget).acquire(3);
+    given(budget).acquire(4);
+    given(budget).release(3);
+    when(budget.getUsed());
+    thenReturned(4L);
+  }
+
+  @Test
+  public void acquiring_waits_until_weight_is_released() {
+    given(budget = budget(10));
+    given(budget).acquire(8);
+    given(supplying(() -> {
+      sleepSeconds(0.1);
+      budget.release(8);
+    }));
+    when(() -> budget.acquire(5));
+    thenReturned();
+  }
+
+  @Test
+  public void grants_weight_over_limit_when_nothing_is_acquired() {
+    given(budget = budget(10));
+    given(budget).acquire(15);
+    when(budget.getUsed());
+    thenReturned(15L);
+  }
+
+  @Test
+  public void aborts_acquiring() {
+    given(budget = budget(10));
+    given(budget).acquire(8);
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> budget.acquire(5));
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void cannot_release_more_than_acquired() {
+    given(budget = budget(10));
+    given(budget).acquire(3);
+    when(() -> budget.release(4));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void default_is_unlimited() {
+    when(Budget.getDefault().getLimit());
+    thenReturned(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void unlimited_does_not_account_weight() {
+    given(budget = unlimited());
+    given(budget).acquire(5);
+    when(budget.getUsed());
+    thenReturned(0L);
+  }
+
+  @Test
+  public void sets_default() {
+    given(budget = budget(10));
+    given(() -> Budget.setDefault(budget));
+    when(Budget.getDefault());
+    thenReturned(budget);
+  }
+
+  @Test
+  public void implements_to_string() {
+    when(budget(10).toString());
+    thenReturned("budget(10)");
+  }
+
+  @Test
+  public void implements_to_string_of_unlimited() {
+    when(unlimited().toString());
+    thenReturned("unlimited()");
+  }
+
+  @Test
+  public void checks_that_limit_is_positive() {
+    when(() -> budget(0));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_weight_is_not_negative() {
+    given(budget = budget(10));
+    when(() -> budget.acquire(-1));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_default() {
+    when(() -> Budget.setDefault(null));
+    thenThrown(MokoshException.class);
+  }
+}
@@ -1,12 +1,14 @@
 package com.perunlabs.mokosh.iterating;
 
 import static com.perunlabs.mokosh.iterating.Buffering.buffering;
+import static com.perunlabs.mokosh.iterating.Buffering.streamBuffering;
 import static com.perunlabs.mokosh.testing.Testing.collectToList;
 import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
 import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
 import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Stream.iterate;
 import static org.junit.rules.Timeout.seconds;
 import static org.testory.Testory.given;
@@ -18,7 +20,11 @@ import static org.testory.Testory.thenThrown;
 import static org.testory.Testory.when;
 import static org.testory.Testory.willReturn;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -33,6 +39,8 @@ public class TestBuffering {
   public final Timeout timeout = seconds(1);
 
   private Iterating<Foo> iterating;
+  private Iterating<Integer> integers;
+  private AtomicBoolean closed;
   private Foo a, b, c;
   private Iterator<Foo> iterator;
 
@@ -110,6 +118,92 @@ public class TestBuffering {
     then(!iterating.isRunning());
   }
 
+  @Test
+  public void drains_available_elements() {
+    given(iterating = buffering(3, asList(a, b, c).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.nextBatch(10));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void drains_at_most_max_elements() {
+    given(iterating = buffering(3, asList(a, b, c).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.nextBatch(2));
+    thenReturned(asList(a, b));
+  }
+
+  @Test
+  public void drains_nothing_after_last_element() {
+    given(iterating = buffering(3, asList(a).iterator()));
+    given(iterating.next());
+    when(iterating.nextBatch(1));
+    thenReturned(asList());
+  }
+
+  @Test
+  public void drains_batch_from_upstream_stage() {
+    given(iterating = buffering(3, buffering(3, asList(a, b, c).iterator())));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void checks_that_max_is_positive() {
+    given(iterating = buffering(3, asList(a).iterator()));
+    when(() -> iterating.drainTo(new ArrayList<>(), 0));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void streams_elements() {
+    given(iterating = buffering(2, asList(a, b, c).iterator()));
+    when(iterating.stream().collect(toList()));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void parallel_stream_keeps_order() {
+    given(integers = buffering(100, iterate(0, i -> i + 1).limit(10_000).iterator()));
+    when(integers.parallelStream().map(i -> i + 1).collect(toList()));
+    thenReturned(collectToList(iterate(1, i -> i + 1).limit(10_000).iterator()));
+  }
+
+  @Test
+  public void closing_stream_aborts_running() {
+    given(iterating = buffering(1, iterate(a, i -> i).iterator()));
+    given(iterating.stream()).close();
+    when(iterating.await());
+    thenReturned();
+    then(!iterating.isRunning());
+  }
+
+  @Test
+  public void buffers_stream() {
+    given(iterating = streamBuffering(2, Stream.of(a, b, c)));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void closes_buffered_stream() {
+    given(closed = new AtomicBoolean());
+    given(iterating = streamBuffering(2, Stream.of(a, b, c).onClose(() -> closed.set(true))));
+    given(collectToList(iterating));
+    given(iterating.await());
+    when(closed.get());
+    thenReturned(true);
+  }
+
+  @Test
+  public void buffers_spliterator() {
+    given(iterating = streamBuffering(2,
+        StreamSupport.stream(asList(a, b, c).spliterator(), false)));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
   @Test
   public void implements_to_string() {
     given(iterating = buffering(2, iterator));
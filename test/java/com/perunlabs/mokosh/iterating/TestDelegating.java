@@ -2,6 +2,7 @@ package com.perunlabs.mokosh.iterating;
 
 import static com.perunlabs.mokosh.iterating.Delegating.iterating;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static org.testory.Testory.given;
 import static org.testory.Testory.givenTest;
 import static org.testory.Testory.thenCalled;
@@ -70,6 +71,15 @@ public class TestDelegating {
     thenCalled(iterator).next();
   }
 
+  @Test
+  public void delegates_next_batch() {
+    given(iterating = iterating(running, iterator));
+    given(willReturn(true), iterator).hasNext();
+    given(willReturn(foo), iterator).next();
+    when(iterating.nextBatch(2));
+    thenReturned(asList(foo));
+  }
+
   @Test
   public void implements_to_string() {
     given(iterating = iterating(running, iterator));
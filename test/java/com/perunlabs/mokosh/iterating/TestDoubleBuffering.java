@@ -0,0 +1,131 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.DoubleBuffering.doubleBuffering;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.onInstance;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestDoubleBuffering {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private DoubleIterating iterating;
+  private PrimitiveIterator.OfDouble iterator;
+  private double[] array;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @Test
+  public void pipes_elements() {
+    given(iterating = doubleBuffering(2, DoubleStream.of(1, 2, 3).iterator()));
+    when(collect(iterating));
+    thenReturned(DoubleStream.of(1, 2, 3).boxed().collect(toList()));
+  }
+
+  @Test
+  public void pipes_many_elements() {
+    given(iterating = doubleBuffering(7,
+        DoubleStream.iterate(0, i -> i + 1).limit(10_000).iterator()));
+    when(collect(iterating));
+    thenReturned(DoubleStream.iterate(0, i -> i + 1).limit(10_000).boxed().collect(toList()));
+  }
+
+  @Test
+  public void drains_elements_wrapping_around() {
+    given(iterating = doubleBuffering(3, DoubleStream.of(1, 2, 3, 4, 5).iterator()));
+    given(iterating.nextDouble());
+    given(iterating.nextDouble());
+    given(sleepSeconds(0.1));
+    given(array = new double[4]);
+    when(iterating.drainTo(array, 1, 3));
+    thenReturned(3);
+    then(array[1] == 3 && array[2] == 4 && array[3] == 5);
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(iterating = doubleBuffering(1, DoubleStream.of(1).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void aborts_has_next() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(iterating = doubleBuffering(1, iterator));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> iterating.hasNext());
+    thenThrown(AbortException.class);
+    then(iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_running_while_blocked() {
+    given(willSleepSeconds(0.2), onInstance(iterator));
+    given(iterating = doubleBuffering(1, iterator));
+    when(iterating.abort().await());
+    thenReturned();
+    then(!iterating.isRunning());
+    then(!iterating.hasNext());
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterating = doubleBuffering(2, iterator));
+    when(iterating.toString());
+    thenReturned(format("doubleBuffering(%s, %s)", 2, iterator));
+  }
+
+  @Test
+  public void checks_that_limit_is_positive() {
+    when(() -> doubleBuffering(0, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_iterator_is_not_null() {
+    when(() -> doubleBuffering(1, null));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_array_range_is_valid() {
+    given(iterating = doubleBuffering(1, DoubleStream.of(1).iterator()));
+    when(() -> iterating.drainTo(new double[2], 1, 2));
+    thenThrown(MokoshException.class);
+  }
+
+  private static List<Double> collect(DoubleIterating iterating) {
+    List<Double> list = new ArrayList<>();
+    iterating.forEachRemaining((DoubleConsumer) list::add);
+    return list;
+  }
+}
@@ -0,0 +1,104 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.IntWorking.intWorking;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.onInstance;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestIntWorking {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private IntIterating iterating;
+  private PrimitiveIterator.OfInt iterator;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @Test
+  public void pipes_elements() {
+    given(iterating = intWorking(IntStream.of(1, 2, 3).iterator()));
+    when(collect(iterating));
+    thenReturned(IntStream.of(1, 2, 3).boxed().collect(toList()));
+  }
+
+  @Test
+  public void pipes_boxed_elements() {
+    given(iterating = intWorking(IntStream.of(1, 2, 3).iterator()));
+    when(iterating.nextBatch(3));
+    thenReturned(IntStream.of(1).boxed().collect(toList()));
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(iterating = intWorking(IntStream.of(1).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void aborts_has_next() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(iterating = intWorking(iterator));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> iterating.hasNext());
+    thenThrown(AbortException.class);
+    then(iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_running_while_blocked() {
+    given(willSleepSeconds(0.2), onInstance(iterator));
+    given(iterating = intWorking(iterator));
+    when(iterating.abort().await());
+    thenReturned();
+    then(!iterating.isRunning());
+    then(!iterating.hasNext());
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterating = intWorking(iterator));
+    when(iterating.toString());
+    thenReturned(format("intWorking(%s)", iterator));
+  }
+
+  @Test
+  public void checks_that_iterator_is_not_null() {
+    when(() -> intWorking(null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static List<Integer> collect(IntIterating iterating) {
+    List<Integer> list = new ArrayList<>();
+    iterating.forEachRemaining((IntConsumer) list::add);
+    return list;
+  }
+}
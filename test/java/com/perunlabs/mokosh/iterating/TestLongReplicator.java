@@ -0,0 +1,117 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.LongReplicator.longReplicate;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenEqual;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+import com.perunlabs.mokosh.running.Running;
+
+public class TestLongReplicator {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private PrimitiveIterator.OfLong iterator;
+  private LongReplicator replicator;
+  private Running<?> runningA, runningB;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @After
+  public void after() {
+    runningA.abort();
+    runningB.abort();
+  }
+
+  @Test
+  public void replicates_once() {
+    given(replicator = longReplicate(1, LongStream.of(1, 2, 3).iterator()));
+    when(collect(replicator.iterator()));
+    thenReturned(LongStream.of(1, 2, 3).boxed().collect(toList()));
+  }
+
+  @Test
+  public void replicates_twice() {
+    given(replicator = longReplicate(2, LongStream.of(1, 2, 3).iterator()));
+    given(runningA = supplying(() -> collect(replicator.iterator())));
+    given(runningB = supplying(() -> collect(replicator.iterator())));
+    when(() -> {
+      runningA.await();
+      runningB.await();
+    });
+    thenEqual(runningA.await().get(), LongStream.of(1, 2, 3).boxed().collect(toList()));
+    thenEqual(runningB.await().get(), LongStream.of(1, 2, 3).boxed().collect(toList()));
+  }
+
+  @Test
+  public void iterator_blocks_until_all_iterators_are_requested() {
+    given(replicator = longReplicate(2, LongStream.of(1, 2, 3).iterator()));
+    given(runningA = supplying(() -> replicator.iterator()));
+    given(sleepSeconds(0.1));
+    when(runningA.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void abort_when_blocked_on_has_next() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(replicator = longReplicate(2, iterator));
+    given(runningA = supplying(() -> collect(replicator.iterator())));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> runningA.await());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(replicator = longReplicate(2, iterator));
+    when(replicator.toString());
+    thenReturned(format("longReplicate(%s, %s)", 2, iterator));
+  }
+
+  @Test
+  public void checks_if_count_is_positive() {
+    when(() -> longReplicate(0, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_if_iterator_is_not_null() {
+    when(() -> longReplicate(2, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static List<Long> collect(PrimitiveIterator.OfLong iterator) {
+    List<Long> list = new ArrayList<>();
+    while (iterator.hasNext()) {
+      list.add(iterator.nextLong());
+    }
+    return list;
+  }
+}
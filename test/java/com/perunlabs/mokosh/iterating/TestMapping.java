@@ -0,0 +1,177 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.Buffering.buffering;
+import static com.perunlabs.mokosh.iterating.Mapping.mapping;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.onInstance;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.Iterator;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestMapping {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Iterating<Foo> iterating;
+  private Iterating<Integer> integers;
+  private Foo a, b, c;
+  private Iterator<Foo> iterator;
+  private Function<Foo, Foo> function;
+  private RuntimeException runtimeException;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @Test
+  public void maps_elements() {
+    given(iterating = mapping(2, foo -> foo == a ? b : c, asList(a, b, c).iterator()));
+    when(collectToList(iterating));
+    thenReturned(asList(b, c, c));
+  }
+
+  @Test
+  public void keeps_order_of_elements() {
+    given(integers = mapping(4, i -> {
+      sleepSeconds(0.01 * (9 - i));
+      return i;
+    }, iterate(0, i -> i + 1).limit(10).iterator()));
+    when(collectToList(integers));
+    thenReturned(asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+  }
+
+  @Test
+  public void maps_in_parallel() {
+    given(iterating = mapping(3, foo -> {
+      sleepSeconds(0.4);
+      return foo;
+    }, asList(a, b, c).iterator()));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void maps_many_elements() {
+    given(integers = mapping(4, i -> i + 1, iterate(0, i -> i + 1).limit(10_000).iterator()));
+    when(collectToList(integers));
+    thenReturned(collectToList(iterate(1, i -> i + 1).limit(10_000).iterator()));
+  }
+
+  @Test
+  public void composes_with_buffering() {
+    given(iterating = buffering(2, mapping(2, foo -> foo, asList(a, b, c).iterator())));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(iterating = mapping(2, foo -> foo, asList(a).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void drains_available_elements() {
+    given(iterating = mapping(2, foo -> foo, asList(a, b, c).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.nextBatch(10));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void failure_of_function_fails_mapping() {
+    given(iterating = mapping(2, foo -> {
+      throw runtimeException;
+    }, asList(a, b, c).iterator()));
+    when(() -> iterating.await().get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void ends_iteration_after_failure() {
+    given(iterating = mapping(2, foo -> {
+      throw runtimeException;
+    }, asList(a, b, c).iterator()));
+    when(iterating.hasNext());
+    thenReturned(false);
+  }
+
+  @Test
+  public void aborts_has_next() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(iterating = mapping(2, function, iterator));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> iterating.hasNext());
+    thenThrown(AbortException.class);
+    then(iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_running_while_blocked() {
+    given(willSleepSeconds(0.2), onInstance(iterator));
+    given(iterating = mapping(2, function, iterator));
+    given(sleepSeconds(0.1));
+    when(iterating.abort().await());
+    thenReturned();
+    then(!iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_running_while_iterating() {
+    given(iterating = mapping(2, foo -> foo, iterate(a, foo -> foo).iterator()));
+    when(() -> iterating.abort().await().get());
+    thenThrown(AbortException.class);
+    then(!iterating.isRunning());
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterating = mapping(2, function, iterator));
+    when(iterating.toString());
+    thenReturned(format("mapping(%s, %s, %s)", 2, function, iterator));
+  }
+
+  @Test
+  public void checks_that_parallelism_is_positive() {
+    when(() -> mapping(0, function, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_function_is_not_null() {
+    when(() -> mapping(1, null, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_iterator_is_not_null() {
+    when(() -> mapping(1, function, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static class Foo {}
+}
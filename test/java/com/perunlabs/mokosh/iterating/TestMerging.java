@@ -0,0 +1,194 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.Merging.alternating;
+import static com.perunlabs.mokosh.iterating.Merging.merging;
+import static com.perunlabs.mokosh.iterating.Merging.prioritizing;
+import static com.perunlabs.mokosh.iterating.Working.working;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.onInstance;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+import static org.testory.Testory.willReturn;
+import static org.testory.Testory.willThrow;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestMerging {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Iterating<Foo> iterating, upstream;
+  private Foo a, b, c, d, e;
+  private Iterator<Foo> iterator, otherIterator;
+  private RuntimeException runtimeException;
+  private List<Iterator<Foo>> iterators;
+  private List<Foo> elements;
+  private CountDownLatch latch;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(elements = new ArrayList<>());
+  }
+
+  @Test
+  public void merges_elements() {
+    given(iterating = merging(2, asList(asList(a, b).iterator(), asList(c).iterator())));
+    when(new HashSet<>(collectToList(iterating)));
+    thenReturned(new HashSet<>(asList(a, b, c)));
+  }
+
+  @Test
+  public void merges_elements_in_order_of_arrival() {
+    given(latch = new CountDownLatch(1));
+    given(iterating = merging(2, asList(gated(latch, c), asList(a, b).iterator())));
+    given(elements.add(iterating.next()));
+    given(elements.add(iterating.next()));
+    given(() -> latch.countDown());
+    given(elements.addAll(collectToList(iterating)));
+    when(elements);
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void alternates_sources() {
+    given(iterating = alternating(3, asList(
+        asList(a, b, c).iterator(),
+        asList(d).iterator(),
+        asList(e).iterator())));
+    when(collectToList(iterating));
+    thenReturned(asList(a, d, e, b, c));
+  }
+
+  @Test
+  public void prioritizes_first_sources() {
+    given(iterating = prioritizing(3, asList(asList(a, b).iterator(), asList(c, d).iterator())));
+    given(sleepSeconds(0.1));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c, d));
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(iterating = merging(1, asList(asList(a).iterator())));
+    given(sleepSeconds(0.1));
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void completes_when_all_elements_are_read() {
+    given(iterating = merging(1, asList(asList(a).iterator(), asList(b).iterator())));
+    given(collectToList(iterating));
+    when(iterating.await().get());
+    thenReturned(null);
+  }
+
+  @Test
+  public void failure_of_source_fails_merging() {
+    given(willReturn(true), iterator).hasNext();
+    given(willThrow(runtimeException), iterator).next();
+    given(iterating = merging(1, asList(iterator, asList(a).iterator())));
+    when(() -> iterating.await().get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void failure_of_upstream_running_fails_merging() {
+    given(willReturn(true), iterator).hasNext();
+    given(willThrow(runtimeException), iterator).next();
+    given(upstream = working(iterator));
+    given(iterating = merging(1, asList(upstream, asList(a).iterator())));
+    given(collectToList(iterating));
+    when(() -> iterating.await().get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void aborts_upstream_running() {
+    given(willSleepSeconds(0.2), onInstance(iterator));
+    given(upstream = working(iterator));
+    given(iterating = merging(1, asList(upstream)));
+    when(iterating.abort().await());
+    thenReturned();
+    then(!upstream.isRunning());
+    then(!iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_has_next() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(iterating = merging(1, asList(iterator)));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> iterating.hasNext());
+    thenThrown(AbortException.class);
+    then(iterating.isRunning());
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterators = asList(iterator, otherIterator));
+    when(alternating(2, iterators).toString());
+    thenReturned(format("alternating(%s, %s)", 2, iterators));
+  }
+
+  @Test
+  public void checks_that_limit_is_positive() {
+    when(() -> merging(0, asList(iterator)));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_iterators_are_not_empty() {
+    when(() -> prioritizing(1, asList()));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_iterator_is_not_null() {
+    when(() -> merging(1, asList(iterator, null)));
+    thenThrown(MokoshException.class);
+  }
+
+  /**
+   * @return iterator that makes element available only after latch is released
+   */
+  private static Iterator<Foo> gated(CountDownLatch latch, Foo element) {
+    return Stream.of(element)
+        .peek(foo -> await(latch))
+        .iterator();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+
+  private static class Foo {}
+}
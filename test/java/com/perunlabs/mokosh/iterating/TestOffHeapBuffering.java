@@ -0,0 +1,234 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.OffHeapBuffering.offHeapBuffering;
+import static com.perunlabs.mokosh.testing.Testing.bytes;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestOffHeapBuffering {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Iterating<Integer> iterating;
+  private Iterating<byte[]> arrays;
+  private Codec<Integer> codec;
+  private Codec<byte[]> arrayCodec;
+  private Iterator<Integer> iterator;
+  private AtomicInteger pulled;
+  private IOException exception;
+  private Supplier<Void> result;
+  private byte[] array, otherArray;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(pulled = new AtomicInteger());
+    given(codec = new Codec<Integer>() {
+      public void encode(Integer element, DataOutput output) throws IOException {
+        output.writeInt(element);
+      }
+
+      public Integer decode(DataInput input) throws IOException {
+        return input.readInt();
+      }
+    });
+    given(arrayCodec = new Codec<byte[]>() {
+      public void encode(byte[] element, DataOutput output) throws IOException {
+        output.writeInt(element.length);
+        output.write(element);
+      }
+
+      public byte[] decode(DataInput input) throws IOException {
+        byte[] element = new byte[input.readInt()];
+        input.readFully(element);
+        return element;
+      }
+    });
+  }
+
+  @Test
+  public void pipes_many_elements() {
+    given(iterating = offHeapBuffering(1 << 16, codec, asList(1, 2, 3).iterator()));
+    when(collectToList(iterating));
+    thenReturned(asList(1, 2, 3));
+  }
+
+  @Test
+  public void pipes_elements_through_many_segments() {
+    given(iterating = offHeapBuffering(1 << 18, codec, integers(100_000)));
+    when(collectToList(iterating));
+    thenReturned(collectToList(integers(100_000)));
+  }
+
+  @Test
+  public void pipes_elements_spanning_segments() {
+    given(array = bytes(100_000));
+    given(otherArray = bytes(70_000));
+    given(arrays = offHeapBuffering(1 << 20, arrayCodec, asList(array, otherArray).iterator()));
+    when(Arrays.equals(array, arrays.next()) && Arrays.equals(otherArray, arrays.next()));
+    thenReturned(true);
+  }
+
+  @Test
+  public void buffers_element_larger_than_limit_alone() {
+    given(array = bytes(200_000));
+    given(arrays = offHeapBuffering(1, arrayCodec, asList(array, array).iterator()));
+    when(Arrays.equals(array, arrays.next()) && Arrays.equals(array, arrays.next()));
+    thenReturned(true);
+  }
+
+  @Test
+  public void drains_available_elements() {
+    given(iterating = offHeapBuffering(1 << 16, codec, asList(1, 2, 3).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.nextBatch(10));
+    thenReturned(asList(1, 2, 3));
+  }
+
+  @Test
+  public void producer_waits_when_limit_is_full() {
+    given(iterating = offHeapBuffering(1, codec, iterate(0, i -> i + 1)
+        .peek(i -> pulled.incrementAndGet())
+        .iterator()));
+    given(sleepSeconds(0.1));
+    when(pulled.get() < 1 << 16);
+    thenReturned(true);
+  }
+
+  @Test
+  public void buffers_elements_within_limit_bytes() {
+    given(iterating = offHeapBuffering(80, codec, iterate(0, i -> i + 1)
+        .peek(i -> pulled.incrementAndGet())
+        .iterator()));
+    given(sleepSeconds(0.1));
+    when(pulled.get());
+    thenReturned(11);
+  }
+
+  @Test
+  public void reads_elements_buffered_before_source_failed() {
+    given(iterating = offHeapBuffering(1 << 16, codec, failingAfter(asList(1, 2))));
+    given(iterating.await());
+    when(collectToList(iterating));
+    thenReturned(asList(1, 2));
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(iterating = offHeapBuffering(1 << 16, codec, asList(1).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void has_no_next_when_aborted() {
+    given(iterating = offHeapBuffering(1 << 16, codec, integers(1000)));
+    given(sleepSeconds(0.1));
+    given(iterating.abort().await());
+    when(iterating.hasNext());
+    thenReturned(false);
+  }
+
+  @Test
+  public void fails_when_encoding_fails() {
+    given(codec = new Codec<Integer>() {
+      public void encode(Integer element, DataOutput output) throws IOException {
+        throw exception;
+      }
+
+      public Integer decode(DataInput input) throws IOException {
+        throw exception;
+      }
+    });
+    given(iterating = offHeapBuffering(1 << 16, codec, integers(10)));
+    given(result = iterating.await());
+    when(() -> result.get());
+    thenThrown(UncheckedIOException.class);
+  }
+
+  @Test
+  public void next_fails_when_decoding_fails() {
+    given(codec = new Codec<Integer>() {
+      public void encode(Integer element, DataOutput output) throws IOException {}
+
+      public Integer decode(DataInput input) throws IOException {
+        throw exception;
+      }
+    });
+    given(iterating = offHeapBuffering(1 << 16, codec, integers(10)));
+    when(() -> iterating.next());
+    thenThrown(UncheckedIOException.class);
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterating = offHeapBuffering(100, codec, iterator));
+    when(iterating.toString());
+    thenReturned(format("offHeapBuffering(%s, %s, %s)", 100L, codec, iterator));
+  }
+
+  @Test
+  public void checks_that_limit_is_positive() {
+    when(() -> offHeapBuffering(0, codec, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_codec() {
+    when(() -> offHeapBuffering(1, null, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_iterator() {
+    when(() -> offHeapBuffering(1, codec, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static Iterator<Integer> integers(int count) {
+    return iterate(0, i -> i + 1).limit(count).iterator();
+  }
+
+  private static <E> Iterator<E> failingAfter(List<E> elements) {
+    Iterator<E> iterator = elements.iterator();
+    return new Iterator<E>() {
+      public boolean hasNext() {
+        if (!iterator.hasNext()) {
+          throw new RuntimeException();
+        }
+        return true;
+      }
+
+      public E next() {
+        return iterator.next();
+      }
+    };
+  }
+}
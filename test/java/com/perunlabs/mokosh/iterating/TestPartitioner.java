@@ -0,0 +1,78 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.Partitioner.hashing;
+import static com.perunlabs.mokosh.iterating.Partitioner.leastLoaded;
+import static com.perunlabs.mokosh.iterating.Partitioner.roundRobin;
+import static java.lang.String.format;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestPartitioner {
+  private Partitioner<Object> partitioner;
+  private Function<Object, Object> key;
+  private Object object, otherObject;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @Test
+  public void hashing_sends_equal_keys_to_same_partition() {
+    given(partitioner = hashing(element -> "key"));
+    when(partitioner.partition(object, new int[3]) == partitioner.partition(otherObject, new int[3]));
+    thenReturned(true);
+  }
+
+  @Test
+  public void hashing_accepts_null_key() {
+    given(partitioner = hashing(element -> null));
+    when(partitioner.partition(object, new int[3]));
+    thenReturned(0);
+  }
+
+  @Test
+  public void hashing_stays_in_range_for_negative_hash() {
+    given(partitioner = hashing(element -> Integer.MIN_VALUE + 1));
+    when(partitioner.partition(object, new int[3]) >= 0);
+    thenReturned(true);
+  }
+
+  @Test
+  public void round_robin_cycles_partitions() {
+    given(partitioner = roundRobin());
+    given(partitioner.partition(object, new int[2]));
+    given(partitioner.partition(object, new int[2]));
+    when(partitioner.partition(object, new int[2]));
+    thenReturned(0);
+  }
+
+  @Test
+  public void least_loaded_chooses_partition_with_fewest_elements() {
+    given(partitioner = leastLoaded());
+    when(partitioner.partition(object, new int[] { 3, 1, 2 }));
+    thenReturned(1);
+  }
+
+  @Test
+  public void implements_to_string() {
+    when(hashing(key).toString());
+    thenReturned(format("hashing(%s)", key));
+  }
+
+  @Test
+  public void checks_that_key_is_not_null() {
+    when(() -> hashing(null));
+    thenThrown(MokoshException.class);
+  }
+}
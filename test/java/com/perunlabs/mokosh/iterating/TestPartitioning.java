@@ -0,0 +1,159 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.Partitioner.hashing;
+import static com.perunlabs.mokosh.iterating.Partitioner.roundRobin;
+import static com.perunlabs.mokosh.iterating.Partitioning.partitioning;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.onInstance;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenEqual;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+import com.perunlabs.mokosh.running.Running;
+
+public class TestPartitioning {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Foo a, b, c, d;
+  private Iterator<Foo> iterator;
+  private Partitioner<Foo> partitioner;
+  private List<Iterating<Foo>> partitions;
+  private List<Iterating<String>> strings;
+  private Running<?> running;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @After
+  public void after() {
+    running.abort();
+  }
+
+  @Test
+  public void partitions_elements() {
+    given(partitions = partitioning(2, 4, roundRobin(), asList(a, b, c, d).iterator()));
+    given(running = supplying(() -> collectToList(partitions.get(1))));
+    when(collectToList(partitions.get(0)));
+    thenReturned(asList(a, c));
+    thenEqual(running.await().get(), asList(b, d));
+  }
+
+  @Test
+  public void sends_equal_keys_to_same_partition() {
+    given(strings = partitioning(2, 4, hashing(string -> string.charAt(0)),
+        asList("a1", "b1", "a2", "b2", "a3").iterator()));
+    given(running = supplying(() -> collectToList(strings.get(1))));
+    when(collectToList(strings.get(0)).size() + ((List<?>) running.await().get()).size());
+    thenReturned(5);
+  }
+
+  @Test
+  public void full_partition_blocks_other_partitions() {
+    given(partitions = partitioning(2, 1, roundRobin(), asList(a, b, c, d).iterator()));
+    given(running = supplying(() -> collectToList(partitions.get(1))));
+    given(sleepSeconds(0.1));
+    when(running.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(partitions = partitioning(2, 1, roundRobin(), asList(a).iterator()));
+    given(sleepSeconds(0.1));
+    when(partitions.get(1).isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void drains_partition() {
+    given(partitions = partitioning(2, 4, roundRobin(), asList(a, b, c, d).iterator()));
+    given(sleepSeconds(0.1));
+    when(partitions.get(0).nextBatch(4));
+    thenReturned(asList(a, c));
+  }
+
+  @Test
+  public void fails_when_partition_is_out_of_range() {
+    given(partitions = partitioning(2, 4, (element, queued) -> 2, asList(a).iterator()));
+    when(() -> partitions.get(0).await().get());
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void aborts_has_next() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(partitions = partitioning(2, 1, roundRobin(), iterator));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> partitions.get(0).hasNext());
+    thenThrown(AbortException.class);
+    then(partitions.get(0).isRunning());
+  }
+
+  @Test
+  public void aborting_partition_aborts_all() {
+    given(willSleepSeconds(0.2), onInstance(iterator));
+    given(partitions = partitioning(2, 1, roundRobin(), iterator));
+    when(partitions.get(0).abort().await());
+    thenReturned();
+    then(!partitions.get(1).isRunning());
+    then(!partitions.get(1).hasNext());
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(partitions = partitioning(2, 3, partitioner, iterator));
+    when(partitions.get(1).toString());
+    thenReturned(format("partitioning(%s, %s, %s, %s).get(%s)", 2, 3, partitioner, iterator, 1));
+  }
+
+  @Test
+  public void checks_that_count_is_positive() {
+    when(() -> partitioning(0, 1, partitioner, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_limit_is_positive() {
+    when(() -> partitioning(1, 0, partitioner, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_partitioner_is_not_null() {
+    when(() -> partitioning(1, 1, null, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_iterator_is_not_null() {
+    when(() -> partitioning(1, 1, partitioner, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static class Foo {}
+}
@@ -0,0 +1,219 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.Mapping.mapping;
+import static com.perunlabs.mokosh.iterating.Publishing.publishing;
+import static com.perunlabs.mokosh.iterating.Working.working;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestPublishing {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Iterating<Foo> iterating;
+  private Flow.Publisher<Foo> publisher;
+  private Recorder recorder, otherRecorder;
+  private Foo a, b, c;
+  private RuntimeException runtimeException;
+  private Supplier<Void> result;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(recorder = new Recorder());
+    given(otherRecorder = new Recorder());
+  }
+
+  @Test
+  public void publishes_requested_elements() {
+    given(publisher = publishing(working(asList(a, b, c).iterator())));
+    given(publisher).subscribe(recorder);
+    given(recorder.subscription).request(2);
+    given(sleepSeconds(0.1));
+    when(recorder.events());
+    thenReturned(asList(a, b));
+  }
+
+  @Test
+  public void publishes_more_elements_when_requested_again() {
+    given(publisher = publishing(working(asList(a, b, c).iterator())));
+    given(publisher).subscribe(recorder);
+    given(recorder.subscription).request(1);
+    given(sleepSeconds(0.1));
+    given(recorder.subscription).request(1);
+    given(sleepSeconds(0.1));
+    when(recorder.events());
+    thenReturned(asList(a, b));
+  }
+
+  @Test
+  public void completes_after_last_element() {
+    given(publisher = publishing(working(asList(a, b, c).iterator())));
+    given(publisher).subscribe(recorder);
+    given(recorder.subscription).request(Long.MAX_VALUE);
+    given(sleepSeconds(0.1));
+    when(recorder.events());
+    thenReturned(asList(a, b, c, "complete"));
+  }
+
+  @Test
+  public void completes_empty_after_first_request() {
+    given(publisher = publishing(working(new ArrayList<Foo>().iterator())));
+    given(publisher).subscribe(recorder);
+    given(recorder.subscription).request(1);
+    given(sleepSeconds(0.1));
+    when(recorder.events());
+    thenReturned(asList("complete"));
+  }
+
+  @Test
+  public void signals_failure_of_iterating() {
+    given(iterating = mapping(1, foo -> {
+      throw runtimeException;
+    }, asList(a, b, c).iterator()));
+    given(publisher = publishing(iterating));
+    given(publisher).subscribe(recorder);
+    given(recorder.subscription).request(1);
+    given(sleepSeconds(0.1));
+    when(recorder.events());
+    thenReturned(asList(runtimeException));
+  }
+
+  @Test
+  public void signals_abort_of_iterating() {
+    given(iterating = working(asList(a, b, c).iterator()));
+    given(publisher = publishing(iterating));
+    given(publisher).subscribe(recorder);
+    given(iterating.abort());
+    given(recorder.subscription).request(Long.MAX_VALUE);
+    given(sleepSeconds(0.1));
+    when(recorder.events());
+    then(recorder.events().get(recorder.events().size() - 1) instanceof AbortException);
+  }
+
+  @Test
+  public void cancelling_aborts_iterating() {
+    given(iterating = working(asList(a, b, c).iterator()));
+    given(publisher = publishing(iterating));
+    given(publisher).subscribe(recorder);
+    given(recorder.subscription).cancel();
+    given(result = iterating.await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void stops_publishing_when_cancelled() {
+    given(publisher = publishing(working(asList(a, b, c).iterator())));
+    given(publisher).subscribe(recorder);
+    given(recorder.subscription).cancel();
+    given(recorder.subscription).request(3);
+    given(sleepSeconds(0.1));
+    when(recorder.events());
+    thenReturned(asList());
+  }
+
+  @Test
+  public void signals_nothing_when_cancelled_while_waiting_for_element() {
+    given(publisher = publishing(working(Stream.<Foo> generate(() -> {
+      sleepSeconds(10);
+      return a;
+    }).iterator())));
+    given(publisher).subscribe(recorder);
+    given(recorder.subscription).request(1);
+    given(sleepSeconds(0.1));
+    given(recorder.subscription).cancel();
+    given(sleepSeconds(0.1));
+    when(recorder.events());
+    thenReturned(asList());
+  }
+
+  @Test
+  public void signals_error_when_request_is_not_positive() {
+    given(publisher = publishing(working(asList(a, b, c).iterator())));
+    given(publisher).subscribe(recorder);
+    when(() -> {
+      recorder.subscription.request(0);
+      sleepSeconds(0.1);
+    });
+    then(recorder.events().size() == 1
+        && recorder.events().get(0) instanceof IllegalArgumentException);
+  }
+
+  @Test
+  public void signals_error_to_second_subscriber() {
+    given(publisher = publishing(working(asList(a, b, c).iterator())));
+    given(publisher).subscribe(recorder);
+    when(publisher).subscribe(otherRecorder);
+    then(otherRecorder.events().size() == 1
+        && otherRecorder.events().get(0) instanceof MokoshException);
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterating = working(asList(a, b, c).iterator()));
+    when(publishing(iterating).toString());
+    thenReturned(format("publishing(%s)", iterating));
+  }
+
+  @Test
+  public void checks_null_iterating() {
+    when(() -> publishing(null));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_subscriber() {
+    given(publisher = publishing(working(asList(a, b, c).iterator())));
+    when(() -> publisher.subscribe(null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static class Recorder implements Flow.Subscriber<Foo> {
+    private final List<Object> events = new ArrayList<>();
+    private Flow.Subscription subscription;
+
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    public synchronized void onNext(Foo item) {
+      events.add(item);
+    }
+
+    public synchronized void onError(Throwable throwable) {
+      events.add(throwable);
+    }
+
+    public synchronized void onComplete() {
+      events.add("complete");
+    }
+
+    private synchronized List<Object> events() {
+      return new ArrayList<>(events);
+    }
+  }
+
+  private static class Foo {}
+}
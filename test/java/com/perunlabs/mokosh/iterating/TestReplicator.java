@@ -113,6 +113,7 @@ public class TestReplicator {
     given(replicator = replicate(2, iterator));
     given(runningA = supplying(() -> collectToList(replicator.iterator())));
     given(runningB = supplying(() -> collectToList(replicator.iterator())));
+    given(sleepSeconds(0.1));
     when(() -> replicator.iterator());
     thenThrown(MokoshException.class);
   }
@@ -0,0 +1,202 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.RingBuffering.ringBuffering;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.onInstance;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+import static org.testory.Testory.willReturn;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestRingBuffering {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Iterating<Foo> iterating;
+  private Iterating<Integer> integers;
+  private Foo a, b, c;
+  private Iterator<Foo> iterator;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @Test
+  public void pipes_one_element() {
+    given(iterating = ringBuffering(1, asList(a).iterator()));
+    when(collectToList(iterating));
+    thenReturned(asList(a));
+  }
+
+  @Test
+  public void pipes_many_elements() {
+    given(iterating = ringBuffering(1, asList(a, b, c).iterator()));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void pipes_more_elements_than_capacity() {
+    given(integers = ringBuffering(3, iterate(0, i -> i + 1).limit(100_000).iterator()));
+    when(collectToList(integers));
+    thenReturned(collectToList(iterate(0, i -> i + 1).limit(100_000).iterator()));
+  }
+
+  @Test
+  public void rounds_capacity_up_to_power_of_two() {
+    given(iterating = ringBuffering(3, asList(a, b, c, a).iterator()));
+    given(sleepSeconds(0.1));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c, a));
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(iterating = ringBuffering(1, asList(a).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void aborts_has_next() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(iterating = ringBuffering(1, iterator));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> iterating.hasNext());
+    thenThrown(AbortException.class);
+    then(iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_next() {
+    given(willReturn(true), iterator).hasNext();
+    given(willSleepSeconds(1), iterator).next();
+    given(iterating = ringBuffering(1, iterator));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> iterating.next());
+    thenThrown(AbortException.class);
+    then(iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_awaiting() {
+    given(iterating = ringBuffering(1, asList(a, b, c).iterator()));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> iterating.await());
+    thenThrown(AbortException.class);
+    then(iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_running_while_iterating() {
+    given(iterating = ringBuffering(1_000_000, iterate(a, i -> i).iterator()));
+    when(iterating.abort().await());
+    thenReturned();
+    then(!iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_running_while_blocked() {
+    given(willSleepSeconds(0.2), onInstance(iterator));
+    given(iterating = ringBuffering(1, iterator));
+    when(iterating.abort().await());
+    thenReturned();
+    then(!iterating.isRunning());
+  }
+
+  @Test
+  public void drains_available_elements() {
+    given(iterating = ringBuffering(4, asList(a, b, c).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.nextBatch(10));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void drains_at_most_max_elements() {
+    given(iterating = ringBuffering(4, asList(a, b, c).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.nextBatch(2));
+    thenReturned(asList(a, b));
+  }
+
+  @Test
+  public void drains_nothing_after_last_element() {
+    given(iterating = ringBuffering(4, asList(a).iterator()));
+    given(iterating.next());
+    when(iterating.nextBatch(1));
+    thenReturned(asList());
+  }
+
+  @Test
+  public void drains_batch_from_upstream_stage() {
+    given(iterating = ringBuffering(4, ringBuffering(4, asList(a, b, c).iterator())));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void checks_that_max_is_positive() {
+    given(iterating = ringBuffering(4, asList(a).iterator()));
+    when(() -> iterating.drainTo(new ArrayList<>(), 0));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void ends_iteration_after_abort() {
+    given(iterating = ringBuffering(4, iterate(a, foo -> foo).iterator()));
+    given(iterating.abort().await());
+    when(collectToList(iterating).size() <= 4);
+    thenReturned(true);
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterating = ringBuffering(2, iterator));
+    when(iterating.toString());
+    thenReturned(format("ringBuffering(%s, %s)", 2, iterator));
+  }
+
+  @Test
+  public void checks_that_size_is_positive() {
+    when(() -> ringBuffering(0, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_capacity_is_not_too_big() {
+    when(() -> ringBuffering((1 << 30) + 1, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_iterator_is_not_null() {
+    when(() -> ringBuffering(1, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static class Foo {}
+}
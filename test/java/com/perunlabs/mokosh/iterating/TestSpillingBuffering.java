@@ -0,0 +1,268 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.SpillingBuffering.spillingBuffering;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestSpillingBuffering {
+  @Rule
+  public final Timeout timeout = seconds(1);
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Iterating<Integer> iterating;
+  private Codec<Integer> codec;
+  private Path directory;
+  private Iterator<Integer> iterator;
+  private AtomicInteger pulled;
+  private IOException exception;
+  private Supplier<Void> result;
+
+  @Before
+  public void before() throws IOException {
+    givenTest(this);
+    given(directory = folder.newFolder().toPath());
+    given(pulled = new AtomicInteger());
+    given(codec = new Codec<Integer>() {
+      public void encode(Integer element, DataOutput output) throws IOException {
+        output.writeInt(element);
+      }
+
+      public Integer decode(DataInput input) throws IOException {
+        return input.readInt();
+      }
+    });
+  }
+
+  @Test
+  public void pipes_elements_within_limit() {
+    given(iterating = spillingBuffering(10, 3, codec, directory, asList(1, 2, 3).iterator()));
+    when(collectToList(iterating));
+    thenReturned(asList(1, 2, 3));
+  }
+
+  @Test
+  public void pipes_elements_over_limit_in_order() {
+    given(iterating = spillingBuffering(2, 3, codec, directory, integers(100)));
+    given(sleepSeconds(0.1));
+    when(collectToList(iterating));
+    thenReturned(collectToList(integers(100)));
+  }
+
+  @Test
+  public void pipes_many_elements() {
+    given(iterating = spillingBuffering(10, 100, codec, directory, integers(10_000)));
+    when(collectToList(iterating));
+    thenReturned(collectToList(integers(10_000)));
+  }
+
+  @Test
+  public void drains_elements_from_memory_and_segments() {
+    given(iterating = spillingBuffering(2, 3, codec, directory, integers(10)));
+    given(sleepSeconds(0.1));
+    when(iterating.nextBatch(100));
+    thenReturned(collectToList(integers(10)));
+  }
+
+  @Test
+  public void does_not_block_producer() {
+    given(iterating = spillingBuffering(1, 100, codec, directory, iterate(0, i -> i + 1)
+        .limit(1000)
+        .peek(i -> pulled.incrementAndGet())
+        .iterator()));
+    given(sleepSeconds(0.3));
+    when(pulled.get());
+    thenReturned(1000);
+  }
+
+  @Test
+  public void spills_full_blocks_to_segment_files() {
+    given(iterating = spillingBuffering(1, 10_000, codec, directory, integers(100_000)));
+    given(sleepSeconds(0.3));
+    when(files().size());
+    thenReturned(10);
+  }
+
+  @Test
+  public void keeps_spilled_elements_in_memory_until_block_is_full() {
+    given(iterating = spillingBuffering(1, 3, codec, directory, integers(10)));
+    given(sleepSeconds(0.1));
+    when(files());
+    thenReturned(asList());
+  }
+
+  @Test
+  public void reads_segment_that_is_still_written() {
+    given(iterating = spillingBuffering(1, 100, codec, directory, iterate(0, i -> i + 1)
+        .peek(i -> {
+          if (i == 5) {
+            sleepSeconds(10);
+          }
+        })
+        .iterator()));
+    when(next(iterating, 5));
+    thenReturned(asList(0, 1, 2, 3, 4));
+  }
+
+  @Test
+  public void deletes_segments_after_reading() {
+    given(iterating = spillingBuffering(1, 10_000, codec, directory, integers(100_000)));
+    given(sleepSeconds(0.3));
+    given(collectToList(iterating));
+    given(iterating.await());
+    when(files());
+    thenReturned(asList());
+  }
+
+  @Test
+  public void deletes_segments_when_aborted() {
+    given(iterating = spillingBuffering(1, 10_000, codec, directory, integers(100_000)));
+    given(sleepSeconds(0.3));
+    given(iterating.abort().await());
+    when(files());
+    thenReturned(asList());
+    then(!iterating.hasNext());
+  }
+
+  @Test
+  public void reads_elements_spilled_before_source_failed() {
+    given(iterating = spillingBuffering(1, 10_000, codec, directory,
+        failingAfter(collectToList(integers(100_000)))));
+    given(iterating.await());
+    when(collectToList(iterating));
+    thenReturned(collectToList(integers(100_000)));
+    then(files().isEmpty());
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(iterating = spillingBuffering(1, 3, codec, directory, integers(10)));
+    given(sleepSeconds(0.1));
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void fails_when_encoding_fails() {
+    given(codec = new Codec<Integer>() {
+      public void encode(Integer element, DataOutput output) throws IOException {
+        throw exception;
+      }
+
+      public Integer decode(DataInput input) throws IOException {
+        throw exception;
+      }
+    });
+    given(iterating = spillingBuffering(1, 3, codec, directory, integers(10)));
+    given(result = iterating.await());
+    when(() -> result.get());
+    thenThrown(UncheckedIOException.class);
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterating = spillingBuffering(2, codec, iterator));
+    when(iterating.toString());
+    thenReturned(format("spillingBuffering(%s, %s, %s)", 2, codec, iterator));
+  }
+
+  @Test
+  public void implements_to_string_with_segments() {
+    given(iterating = spillingBuffering(2, 3, codec, directory, iterator));
+    when(iterating.toString());
+    thenReturned(format("spillingBuffering(%s, %s, %s, %s, %s)",
+        2, 3, codec, directory, iterator));
+  }
+
+  @Test
+  public void checks_that_limit_is_positive() {
+    when(() -> spillingBuffering(0, codec, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_segment_size_is_positive() {
+    when(() -> spillingBuffering(1, 0, codec, directory, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_codec() {
+    when(() -> spillingBuffering(1, null, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_directory() {
+    when(() -> spillingBuffering(1, 3, codec, null, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_iterator() {
+    when(() -> spillingBuffering(1, codec, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static Iterator<Integer> integers(int count) {
+    return iterate(0, i -> i + 1).limit(count).iterator();
+  }
+
+  private static <E> List<E> next(Iterator<E> iterator, int count) {
+    List<E> list = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      list.add(iterator.next());
+    }
+    return list;
+  }
+
+  private List<File> files() {
+    return asList(directory.toFile().listFiles());
+  }
+
+  private static <E> Iterator<E> failingAfter(List<E> elements) {
+    Iterator<E> iterator = elements.iterator();
+    return new Iterator<E>() {
+      public boolean hasNext() {
+        if (!iterator.hasNext()) {
+          throw new RuntimeException();
+        }
+        return true;
+      }
+
+      public E next() {
+        return iterator.next();
+      }
+    };
+  }
+}
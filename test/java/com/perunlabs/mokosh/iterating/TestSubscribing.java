@@ -0,0 +1,213 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.Publishing.publishing;
+import static com.perunlabs.mokosh.iterating.Subscribing.subscribing;
+import static com.perunlabs.mokosh.iterating.Working.working;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenCalled;
+import static org.testory.Testory.thenCalledNever;
+import static org.testory.Testory.thenCalledTimes;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestSubscribing {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Iterating<Foo> iterating;
+  private Iterating<Integer> integers;
+  private Flow.Publisher<Foo> publisher;
+  private Flow.Subscriber<? super Foo> subscriber;
+  private Flow.Subscription subscription, otherSubscription;
+  private Foo a, b, c;
+  private RuntimeException runtimeException;
+  private Supplier<Void> result;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(publisher = subscriber -> {
+      this.subscriber = subscriber;
+      subscriber.onSubscribe(subscription);
+    });
+  }
+
+  @Test
+  public void iterates_published_elements() {
+    given(iterating = subscribing(2, publishing(working(asList(a, b, c).iterator()))));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void iterates_many_published_elements() {
+    given(integers = subscribing(16, publishing(working(
+        iterate(0, i -> i + 1).limit(10_000).iterator()))));
+    when(collectToList(integers));
+    thenReturned(collectToList(iterate(0, i -> i + 1).limit(10_000).iterator()));
+  }
+
+  @Test
+  public void requests_prefetch_when_subscribed() {
+    when(subscribing(4, publisher));
+    thenCalled(subscription).request(4);
+  }
+
+  @Test
+  public void requests_more_when_half_of_prefetch_is_consumed() {
+    given(iterating = subscribing(4, publisher));
+    given(subscriber).onNext(a);
+    given(subscriber).onNext(b);
+    given(iterating.next());
+    when(iterating.next());
+    thenCalled(subscription).request(2);
+  }
+
+  @Test
+  public void does_not_request_more_before_half_of_prefetch_is_consumed() {
+    given(iterating = subscribing(4, publisher));
+    given(subscriber).onNext(a);
+    given(subscriber).onNext(b);
+    when(iterating.next());
+    thenCalledTimes(1, subscription).request(4);
+    thenCalledNever(subscription).request(2);
+  }
+
+  @Test
+  public void awaits_published_element() {
+    given(iterating = subscribing(1, publisher));
+    given(supplying(() -> {
+      sleepSeconds(0.1);
+      subscriber.onNext(a);
+    }));
+    when(iterating.next());
+    thenReturned(a);
+  }
+
+  @Test
+  public void has_no_next_when_completed() {
+    given(iterating = subscribing(1, publisher));
+    given(subscriber).onComplete();
+    when(iterating.hasNext());
+    thenReturned(false);
+  }
+
+  @Test
+  public void next_fails_when_completed() {
+    given(iterating = subscribing(1, publisher));
+    given(subscriber).onComplete();
+    when(() -> iterating.next());
+    thenThrown(NoSuchElementException.class);
+  }
+
+  @Test
+  public void iterates_elements_published_before_completion() {
+    given(iterating = subscribing(2, publisher));
+    given(subscriber).onNext(a);
+    given(subscriber).onComplete();
+    when(collectToList(iterating));
+    thenReturned(asList(a));
+  }
+
+  @Test
+  public void is_running_until_last_element_is_read() {
+    given(iterating = subscribing(2, publisher));
+    given(subscriber).onNext(a);
+    given(subscriber).onComplete();
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void completes_when_last_element_is_read() {
+    given(iterating = subscribing(2, publisher));
+    given(subscriber).onNext(a);
+    given(subscriber).onComplete();
+    given(iterating.next());
+    when(iterating.isRunning());
+    thenReturned(false);
+  }
+
+  @Test
+  public void fails_with_error_of_publisher() {
+    given(iterating = subscribing(1, publisher));
+    given(subscriber).onError(runtimeException);
+    given(result = iterating.await());
+    when(() -> result.get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void aborting_cancels_subscription() {
+    given(iterating = subscribing(1, publisher));
+    when(iterating.abort());
+    thenCalled(subscription).cancel();
+  }
+
+  @Test
+  public void aborting_wakes_up_waiting_consumer() {
+    given(iterating = subscribing(1, publisher));
+    given(supplying(() -> {
+      sleepSeconds(0.1);
+      iterating.abort();
+    }));
+    when(iterating.hasNext());
+    thenReturned(false);
+  }
+
+  @Test
+  public void aborting_fails_running() {
+    given(iterating = subscribing(1, publisher));
+    given(iterating.abort());
+    given(result = iterating.await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void cancels_second_subscription() {
+    given(iterating = subscribing(1, publisher));
+    when(subscriber).onSubscribe(otherSubscription);
+    thenCalled(otherSubscription).cancel();
+  }
+
+  @Test
+  public void implements_to_string() {
+    when(subscribing(3, publisher).toString());
+    thenReturned(format("subscribing(%s, %s)", 3, publisher));
+  }
+
+  @Test
+  public void checks_prefetch() {
+    when(() -> subscribing(0, publisher));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_publisher() {
+    when(() -> subscribing(1, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static class Foo {}
+}
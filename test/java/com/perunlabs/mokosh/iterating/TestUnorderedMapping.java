@@ -0,0 +1,178 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.UnorderedMapping.unorderedMapping;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.onInstance;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestUnorderedMapping {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Iterating<Foo> iterating;
+  private Iterating<Integer> integers;
+  private Foo a, b, c;
+  private Iterator<Foo> iterator;
+  private Function<Foo, Foo> function;
+  private RuntimeException runtimeException;
+  private ForkJoinPool pool;
+  private AtomicInteger read;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(pool = new ForkJoinPool(4));
+    given(read = new AtomicInteger());
+  }
+
+  @After
+  public void after() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void maps_elements() {
+    given(iterating = unorderedMapping(pool, 2, foo -> foo == a ? b : c, asList(a, b).iterator()));
+    when(new HashSet<>(collectToList(iterating)));
+    thenReturned(new HashSet<>(asList(b, c)));
+  }
+
+  @Test
+  public void emits_results_as_soon_as_they_complete() {
+    given(integers = unorderedMapping(pool, 4, i -> {
+      sleepSeconds(0.1 * (2 - i));
+      return i;
+    }, asList(0, 1, 2).iterator()));
+    when(collectToList(integers));
+    thenReturned(asList(2, 1, 0));
+  }
+
+  @Test
+  public void maps_many_elements() {
+    given(integers = unorderedMapping(pool, 16, i -> i + 1,
+        iterate(0, i -> i + 1).limit(10_000).iterator()));
+    when(new HashSet<>(collectToList(integers)));
+    thenReturned(new HashSet<>(collectToList(iterate(1, i -> i + 1).limit(10_000).iterator())));
+  }
+
+  @Test
+  public void window_limits_elements_read_ahead() {
+    given(integers = unorderedMapping(pool, 3, i -> i,
+        iterate(0, i -> read.incrementAndGet()).limit(100).iterator()));
+    given(sleepSeconds(0.1));
+    when(read.get());
+    thenReturned(3);
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(iterating = unorderedMapping(pool, 2, foo -> foo, asList(a).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void failure_of_function_fails_mapping() {
+    given(iterating = unorderedMapping(pool, 2, foo -> {
+      throw runtimeException;
+    }, asList(a, b, c).iterator()));
+    when(() -> iterating.await().get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void aborts_has_next() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(iterating = unorderedMapping(pool, 2, function, iterator));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> iterating.hasNext());
+    thenThrown(AbortException.class);
+    then(iterating.isRunning());
+  }
+
+  @Test
+  public void aborts_running_while_blocked() {
+    given(willSleepSeconds(0.2), onInstance(iterator));
+    given(iterating = unorderedMapping(pool, 2, function, iterator));
+    when(iterating.abort().await());
+    thenReturned();
+    then(!iterating.isRunning());
+  }
+
+  @Test
+  public void ends_iteration_after_abort() {
+    given(iterating = unorderedMapping(pool, 2, foo -> foo, iterate(a, foo -> foo).iterator()));
+    given(iterating.abort().await());
+    when(collectToList(iterating).size() <= 2);
+    thenReturned(true);
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterating = unorderedMapping(pool, 2, function, iterator));
+    when(iterating.toString());
+    thenReturned(format("unorderedMapping(%s, %s, %s, %s)", pool, 2, function, iterator));
+  }
+
+  @Test
+  public void uses_common_pool_by_default() {
+    given(iterating = unorderedMapping(2, function, iterator));
+    when(iterating.toString());
+    thenReturned(format("unorderedMapping(%s, %s, %s, %s)",
+        ForkJoinPool.commonPool(), 2, function, iterator));
+  }
+
+  @Test
+  public void checks_that_pool_is_not_null() {
+    when(() -> unorderedMapping(null, 1, function, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_window_is_positive() {
+    when(() -> unorderedMapping(pool, 0, function, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_function_is_not_null() {
+    when(() -> unorderedMapping(pool, 1, null, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_iterator_is_not_null() {
+    when(() -> unorderedMapping(pool, 1, function, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static class Foo {}
+}
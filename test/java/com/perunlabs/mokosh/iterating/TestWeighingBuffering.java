@@ -0,0 +1,211 @@
+package com.perunlabs.mokosh.iterating;
+
+import static com.perunlabs.mokosh.iterating.Budget.budget;
+import static com.perunlabs.mokosh.iterating.WeighingBuffering.weighingBuffering;
+import static com.perunlabs.mokosh.testing.Testing.collectToList;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestWeighingBuffering {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Iterating<Foo> iterating, otherIterating;
+  private Budget budget, defaultBudget;
+  private Foo a, b, c;
+  private Iterator<Foo> iterator;
+  private ToLongFunction<Foo> weigher;
+  private Supplier<Void> result;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(defaultBudget = Budget.getDefault());
+    given(budget = budget(100));
+  }
+
+  @After
+  public void after() {
+    Budget.setDefault(defaultBudget);
+  }
+
+  @Test
+  public void pipes_many_elements() {
+    given(iterating = weighingBuffering(10, foo -> 3, asList(a, b, c).iterator()));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void drains_available_elements() {
+    given(iterating = weighingBuffering(10, foo -> 3, asList(a, b, c).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.nextBatch(10));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void buffers_elements_up_to_limit_of_weight() {
+    given(iterating = weighingBuffering(5, budget, foo -> 2, iterate(a, i -> i).iterator()));
+    given(sleepSeconds(0.1));
+    when(budget.getUsed());
+    thenReturned(4L);
+  }
+
+  @Test
+  public void buffers_element_heavier_than_limit_alone() {
+    given(iterating = weighingBuffering(5, budget, foo -> 8, iterate(a, i -> i).iterator()));
+    given(sleepSeconds(0.1));
+    when(budget.getUsed());
+    thenReturned(8L);
+  }
+
+  @Test
+  public void shares_budget_with_other_buffers() {
+    given(budget = budget(6));
+    given(iterating = weighingBuffering(100, budget, foo -> 2, iterate(a, i -> i).iterator()));
+    given(otherIterating = weighingBuffering(100, budget, foo -> 2,
+        iterate(b, i -> i).iterator()));
+    given(sleepSeconds(0.1));
+    when(budget.getUsed());
+    thenReturned(6L);
+  }
+
+  @Test
+  public void uses_default_budget() {
+    given(() -> Budget.setDefault(budget));
+    given(iterating = weighingBuffering(5, foo -> 2, iterate(a, i -> i).iterator()));
+    given(sleepSeconds(0.1));
+    when(budget.getUsed());
+    thenReturned(4L);
+  }
+
+  @Test
+  public void releases_weight_of_read_elements() {
+    given(iterating = weighingBuffering(5, budget, foo -> 2, asList(a, b, c).iterator()));
+    given(collectToList(iterating));
+    when(budget.getUsed());
+    thenReturned(0L);
+  }
+
+  @Test
+  public void releases_weight_when_aborted() {
+    given(iterating = weighingBuffering(5, budget, foo -> 2, iterate(a, i -> i).iterator()));
+    given(sleepSeconds(0.1));
+    given(iterating.abort().await());
+    when(budget.getUsed());
+    thenReturned(0L);
+  }
+
+  @Test
+  public void reads_elements_buffered_before_source_failed() {
+    given(iterating = weighingBuffering(5, budget, foo -> 2, failingAfter(asList(a, b))));
+    given(iterating.await());
+    when(collectToList(iterating));
+    thenReturned(asList(a, b));
+    then(budget.getUsed() == 0);
+  }
+
+  @Test
+  public void has_no_next_when_aborted() {
+    given(iterating = weighingBuffering(5, budget, foo -> 2, iterate(a, i -> i).iterator()));
+    given(iterating.abort().await());
+    when(iterating.hasNext());
+    thenReturned(false);
+  }
+
+  @Test
+  public void awaits_until_last_element_is_read() {
+    given(iterating = weighingBuffering(5, budget, foo -> 2, asList(a).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void fails_when_weight_is_negative() {
+    given(iterating = weighingBuffering(5, budget, foo -> -1, asList(a).iterator()));
+    given(result = iterating.await());
+    when(() -> result.get());
+    thenThrown(MokoshException.class);
+    then(!iterating.hasNext());
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(iterating = weighingBuffering(5, weigher, iterator));
+    when(iterating.toString());
+    thenReturned(format("weighingBuffering(%s, %s, %s)", 5, weigher, iterator));
+  }
+
+  @Test
+  public void implements_to_string_with_budget() {
+    given(iterating = weighingBuffering(5, budget, weigher, iterator));
+    when(iterating.toString());
+    thenReturned(format("weighingBuffering(%s, %s, %s, %s)", 5, budget, weigher, iterator));
+  }
+
+  @Test
+  public void checks_that_limit_is_positive() {
+    when(() -> weighingBuffering(0, weigher, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_budget() {
+    when(() -> weighingBuffering(5, null, weigher, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_weigher() {
+    when(() -> weighingBuffering(5, null, iterator));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_iterator() {
+    when(() -> weighingBuffering(5, weigher, null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static <E> Iterator<E> failingAfter(List<E> elements) {
+    Iterator<E> iterator = elements.iterator();
+    return new Iterator<E>() {
+      public boolean hasNext() {
+        if (!iterator.hasNext()) {
+          throw new RuntimeException();
+        }
+        return true;
+      }
+
+      public E next() {
+        return iterator.next();
+      }
+    };
+  }
+
+  private static class Foo {}
+}
@@ -1,5 +1,6 @@
 package com.perunlabs.mokosh.iterating;
 
+import static com.perunlabs.mokosh.iterating.Working.streamWorking;
 import static com.perunlabs.mokosh.iterating.Working.working;
 import static com.perunlabs.mokosh.testing.Testing.collectToList;
 import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
@@ -7,6 +8,7 @@ import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
 import static com.perunlabs.mokosh.testing.Testing.willSleepSeconds;
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
+import static java.util.stream.Stream.iterate;
 import static org.junit.rules.Timeout.seconds;
 import static org.testory.Testory.given;
 import static org.testory.Testory.givenTest;
@@ -17,7 +19,12 @@ import static org.testory.Testory.thenThrown;
 import static org.testory.Testory.when;
 import static org.testory.Testory.willReturn;
 
+import java.time.Duration;
 import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -32,6 +39,7 @@ public class TestWorking {
   public final Timeout timeout = seconds(1);
 
   private Iterating<Foo> iterating;
+  private AtomicBoolean closed;
   private Foo a, b, c;
   private Iterator<Foo> iterator;
 
@@ -54,6 +62,54 @@ public class TestWorking {
     thenReturned(asList(a, b, c));
   }
 
+  @Test
+  public void pipes_many_elements_spinning() {
+    given(iterating = working(1_000, asList(a, b, c).iterator()));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void aborts_has_next_spinning() {
+    given(willSleepSeconds(1), iterator).hasNext();
+    given(iterating = working(1_000, iterator));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> iterating.hasNext());
+    thenThrown(AbortException.class);
+    then(iterating.isRunning());
+  }
+
+  @Test
+  public void works_on_stream() {
+    given(iterating = streamWorking(Stream.of(a, b, c)));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
+  @Test
+  public void closes_stream() {
+    given(closed = new AtomicBoolean());
+    given(iterating = streamWorking(Stream.of(a).onClose(() -> closed.set(true))));
+    given(collectToList(iterating));
+    given(iterating.await());
+    when(closed.get());
+    thenReturned(true);
+  }
+
+  @Test
+  public void parallel_stream_splits_whole_batches() {
+    given(iterating = working(iterate(a, foo -> foo).limit(3000).iterator()));
+    when(iterating.parallelStream().spliterator().trySplit().estimateSize());
+    thenReturned(1024L);
+  }
+
+  @Test
+  public void works_on_spliterator() {
+    given(iterating = streamWorking(StreamSupport.stream(asList(a, b, c).spliterator(), false)));
+    when(collectToList(iterating));
+    thenReturned(asList(a, b, c));
+  }
+
   @Test
   public void awaits_until_last_element_is_read() {
     given(iterating = working(asList(a).iterator()));
@@ -83,6 +139,22 @@ public class TestWorking {
     then(iterating.isRunning());
   }
 
+  @Test
+  public void drains_single_element() {
+    given(iterating = working(asList(a, b).iterator()));
+    given(sleepSeconds(0.1));
+    when(iterating.nextBatch(10));
+    thenReturned(asList(a));
+  }
+
+  @Test
+  public void drains_nothing_after_last_element() {
+    given(iterating = working(asList(a).iterator()));
+    given(iterating.next());
+    when(iterating.nextBatch(1));
+    thenReturned(asList());
+  }
+
   @Test
   public void aborts_awaiting() {
     given(iterating = working(asList(a, b).iterator()));
@@ -92,6 +164,13 @@ public class TestWorking {
     then(iterating.isRunning());
   }
 
+  @Test
+  public void awaiting_with_timeout_returns_empty_until_last_element_is_read() {
+    given(iterating = working(asList(a).iterator()));
+    when(iterating.await(Duration.ofMillis(100)));
+    thenReturned(Optional.empty());
+  }
+
   @Test
   public void aborts_running() {
     given(willSleepSeconds(0.2), onInstance(iterator));
@@ -101,6 +180,14 @@ public class TestWorking {
     then(!iterating.isRunning());
   }
 
+  @Test
+  public void ends_iteration_after_abort() {
+    given(iterating = working(iterate(a, foo -> foo).iterator()));
+    given(iterating.abort().await());
+    when(collectToList(iterating).size() <= 1);
+    thenReturned(true);
+  }
+
   @Test
   public void implements_to_string() {
     given(iterating = working(iterator));
@@ -108,6 +195,19 @@ public class TestWorking {
     thenReturned(format("working(%s)", iterator));
   }
 
+  @Test
+  public void implements_to_string_spinning() {
+    given(iterating = working(100, iterator));
+    when(iterating.toString());
+    thenReturned(format("working(%s, %s)", 100, iterator));
+  }
+
+  @Test
+  public void checks_that_spins_are_not_negative() {
+    when(() -> working(-1, iterator));
+    thenThrown(MokoshException.class);
+  }
+
   @Test
   public void checks_that_iterator_is_not_null() {
     when(() -> working(null));
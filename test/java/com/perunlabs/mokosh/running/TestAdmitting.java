@@ -0,0 +1,247 @@
+package com.perunlabs.mokosh.running;
+
+import static com.perunlabs.mokosh.running.Admitting.admitting;
+import static com.perunlabs.mokosh.running.Supplying.using;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenEqual;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestAdmitting {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Admitting admitting;
+  private Executor executor;
+  private Supplying supplying;
+  private Running<?> running, otherRunning, thirdRunning;
+  private CountDownLatch latch;
+  private List<Object> order;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(executor = runnable -> new Thread(runnable).start());
+    given(latch = new CountDownLatch(1));
+    given(order = Collections.synchronizedList(new ArrayList<>()));
+  }
+
+  @After
+  public void after() {
+    latch.countDown();
+    running.abort();
+    otherRunning.abort();
+    thirdRunning.abort();
+  }
+
+  @Test
+  public void admits_up_to_limit() {
+    given(admitting = admitting(2, 10, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> await(latch)));
+    given(sleepSeconds(0.1));
+    when(admitting.getActive());
+    thenReturned(2);
+  }
+
+  @Test
+  public void queues_over_limit() {
+    given(admitting = admitting(1, 10, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> await(latch)));
+    given(sleepSeconds(0.1));
+    when(otherRunning.isRunning() && admitting.getQueued() == 1 && admitting.getActive() == 1);
+    thenReturned(true);
+  }
+
+  @Test
+  public void admits_queued_when_active_completes() {
+    given(admitting = admitting(1, 10, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> "queued"));
+    given(latch).countDown();
+    when(otherRunning.await().get());
+    thenReturned("queued");
+  }
+
+  @Test
+  public void rejects_when_queue_is_full() {
+    given(admitting = admitting(1, 1, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> await(latch)));
+    when(() -> using(admitting).supply(() -> await(latch)));
+    thenThrown(RejectedExecutionException.class);
+    thenEqual(admitting.getRejected(), 1L);
+  }
+
+  @Test
+  public void counts_rejected_by_executor() {
+    given(executor = rejectingCall(0));
+    given(admitting = admitting(1, 10, true, executor));
+    when(() -> using(admitting).supply(() -> "rejected"));
+    thenThrown(RejectedExecutionException.class);
+    thenEqual(admitting.getRejected(), 1L);
+  }
+
+  @Test
+  public void fails_queued_rejected_by_executor() {
+    given(executor = rejectingCall(1));
+    given(admitting = admitting(1, 10, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> "queued"));
+    given(latch).countDown();
+    when(() -> otherRunning.await().get());
+    thenThrown(RejectedExecutionException.class);
+    thenEqual(admitting.getRejected(), 1L);
+  }
+
+  @Test
+  public void admits_queued_after_one_rejected_by_executor() {
+    given(executor = rejectingCall(1));
+    given(admitting = admitting(1, 10, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> "rejected"));
+    given(thirdRunning = using(admitting).supply(() -> "queued"));
+    given(latch).countDown();
+    when(thirdRunning.await().get());
+    thenReturned("queued");
+  }
+
+  @Test
+  public void fair_admits_in_submission_order() {
+    given(admitting = admitting(1, 10, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> order.add(1)));
+    given(thirdRunning = using(admitting).supply(() -> order.add(2)));
+    given(latch).countDown();
+    when(() -> {
+      otherRunning.await();
+      thirdRunning.await();
+    });
+    thenEqual(order, asList(1, 2));
+  }
+
+  @Test
+  public void unfair_admits_most_recent_first() {
+    given(admitting = admitting(1, 10, false, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> order.add(1)));
+    given(thirdRunning = using(admitting).supply(() -> order.add(2)));
+    given(latch).countDown();
+    when(() -> {
+      otherRunning.await();
+      thirdRunning.await();
+    });
+    thenEqual(order, asList(2, 1));
+  }
+
+  @Test
+  public void aborting_queued_completes_it() {
+    given(admitting = admitting(1, 10, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> "queued"));
+    when(otherRunning.abort().isRunning());
+    thenReturned(false);
+  }
+
+  @Test
+  public void aborting_queued_removes_it_from_queue() {
+    given(admitting = admitting(1, 10, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> "queued"));
+    given(otherRunning.abort());
+    when(admitting.getQueued());
+    thenReturned(0);
+  }
+
+  @Test
+  public void aborted_queued_frees_place_in_queue() {
+    given(admitting = admitting(1, 1, true, executor));
+    given(running = using(admitting).supply(() -> await(latch)));
+    given(otherRunning = using(admitting).supply(() -> "aborted"));
+    given(otherRunning.abort());
+    given(thirdRunning = using(admitting).supply(() -> "queued"));
+    given(latch).countDown();
+    when(thirdRunning.await().get());
+    thenReturned("queued");
+  }
+
+  @Test
+  public void bounded_supplying_queues_over_limit() {
+    given(supplying = Supplying.bounded(1));
+    given(running = supplying.supply(() -> await(latch)));
+    given(otherRunning = supplying.supply(() -> "other"));
+    given(sleepSeconds(0.1));
+    when(otherRunning.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(admitting = admitting(1, 2, true, executor));
+    when(admitting.toString());
+    thenReturned(format("admitting(1, 2, true, %s)", executor));
+  }
+
+  @Test
+  public void checks_that_limit_is_positive() {
+    when(() -> admitting(0, 1, true, executor));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_that_queue_limit_is_not_negative() {
+    when(() -> admitting(1, -1, true, executor));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_executor() {
+    when(() -> admitting(1, 1, true, null));
+    thenThrown(MokoshException.class);
+  }
+
+  /**
+   * @return executor that starts threads, but rejects call with given index
+   */
+  private static Executor rejectingCall(int index) {
+    AtomicInteger calls = new AtomicInteger();
+    return runnable -> {
+      if (calls.getAndIncrement() == index) {
+        throw new RejectedExecutionException();
+      }
+      new Thread(runnable).start();
+    };
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
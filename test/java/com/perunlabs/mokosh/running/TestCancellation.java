@@ -0,0 +1,113 @@
+package com.perunlabs.mokosh.running;
+
+import static com.perunlabs.mokosh.running.Cancellation.abortIfCancelled;
+import static com.perunlabs.mokosh.running.Cancellation.cancellation;
+import static com.perunlabs.mokosh.running.Cancellation.current;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+
+public class TestCancellation {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Cancellation cancellation;
+  private Running<?> running;
+  private Supplier<?> result;
+  private CountDownLatch latch;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @After
+  public void after() {
+    running.abort();
+  }
+
+  @Test
+  public void is_not_cancelled() {
+    given(cancellation = cancellation());
+    when(cancellation.isCancelled());
+    thenReturned(false);
+  }
+
+  @Test
+  public void is_cancelled() {
+    given(cancellation = cancellation());
+    given(cancellation).cancel();
+    when(cancellation.isCancelled());
+    thenReturned(true);
+  }
+
+  @Test
+  public void current_is_never_cancelled_outside_running() {
+    given(current()).cancel();
+    when(current().isCancelled());
+    thenReturned(false);
+  }
+
+  @Test
+  public void aborting_cancels_current_of_running() {
+    given(latch = new CountDownLatch(1));
+    given(running = supplying(() -> {
+      while (latch.getCount() > 0) {}
+      return current().isCancelled();
+    }));
+    given(sleepSeconds(0.1));
+    given(running.abort());
+    given(latch).countDown();
+    when(running.await().get());
+    thenReturned(true);
+  }
+
+  @Test
+  public void aborting_is_visible_after_interruption_is_cleared() {
+    given(latch = new CountDownLatch(1));
+    given(running = supplying(() -> {
+      while (latch.getCount() > 0) {}
+      Thread.interrupted();
+      abortIfCancelled();
+    }));
+    given(sleepSeconds(0.1));
+    given(running.abort());
+    given(latch).countDown();
+    given(result = running.await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void aborts_if_interrupted() {
+    given(running = supplying(() -> {
+      Thread.currentThread().interrupt();
+      abortIfCancelled();
+    }));
+    given(result = running.await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void does_not_abort_if_not_cancelled() {
+    when(() -> abortIfCancelled());
+    thenReturned();
+  }
+}
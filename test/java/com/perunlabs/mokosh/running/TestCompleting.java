@@ -0,0 +1,263 @@
+package com.perunlabs.mokosh.running;
+
+import static com.perunlabs.mokosh.running.Completing.completed;
+import static com.perunlabs.mokosh.running.Completing.completing;
+import static com.perunlabs.mokosh.running.Completing.future;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.lang.String.format;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.then;
+import static org.testory.Testory.thenCalled;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestCompleting {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private Object object, otherObject;
+  private RuntimeException runtimeException;
+  private Running<Object> running, otherRunning;
+  private Running<?> result;
+  private CompletableFuture<Object> future;
+  private Supplier<?> supplier;
+  private CountDownLatch latch;
+  private List<Object> log;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(latch = new CountDownLatch(1));
+  }
+
+  @After
+  public void after() {
+    running.abort();
+    otherRunning.abort();
+  }
+
+  @Test
+  public void completed_supplies_result() {
+    when(completed(() -> object).await().get());
+    thenReturned(object);
+  }
+
+  @Test
+  public void completed_is_not_running() {
+    when(completed(() -> object).isRunning());
+    thenReturned(false);
+  }
+
+  @Test
+  public void calls_back_when_completed() {
+    given(running = supplying(() -> {
+      await(latch);
+      return object;
+    }));
+    given(running.onComplete(result -> log.add(result.get())));
+    when(() -> {
+      latch.countDown();
+      sleepSeconds(0.1);
+    });
+    thenCalled(log).add(object);
+  }
+
+  @Test
+  public void calls_back_immediately_if_already_completed() {
+    given(running = supplying(() -> object));
+    given(running.await());
+    when(running.onComplete(result -> log.add(result.get())));
+    thenCalled(log).add(object);
+  }
+
+  @Test
+  public void completing_supplies_result_of_stage() {
+    given(future = new CompletableFuture<>());
+    given(running = completing(future));
+    given(future.complete(object));
+    when(running.await().get());
+    thenReturned(object);
+  }
+
+  @Test
+  public void completing_supplies_failure_of_stage() {
+    given(future = new CompletableFuture<>());
+    given(running = completing(future.thenApply(Function.identity())));
+    given(future.completeExceptionally(runtimeException));
+    given(supplier = running.await());
+    when(() -> supplier.get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void completing_is_running_until_stage_completes() {
+    given(future = new CompletableFuture<>());
+    given(running = completing(future));
+    when(running.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void aborting_completing_cancels_stage() {
+    given(future = new CompletableFuture<>());
+    given(running = completing(future));
+    given(running.abort());
+    then(future.isCancelled());
+    given(supplier = running.await());
+    when(() -> supplier.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void future_is_completed_with_result() {
+    given(future = future(supplying(() -> object)));
+    when(future.join());
+    thenReturned(object);
+  }
+
+  @Test
+  public void future_is_completed_with_failure() {
+    given(future = future(supplying(() -> {
+      throw runtimeException;
+    })));
+    given(sleepSeconds(0.1));
+    when(future.isCompletedExceptionally());
+    thenReturned(true);
+  }
+
+  @Test
+  public void cancelling_future_aborts_running() {
+    given(running = supplying(() -> {
+      await(latch);
+      return object;
+    }));
+    given(future = future(running));
+    given(future.cancel(true));
+    given(supplier = running.await());
+    when(() -> supplier.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void maps_result() {
+    given(running = supplying(() -> object));
+    when(running.map(returned -> otherObject).await().get());
+    thenReturned(otherObject);
+  }
+
+  @Test
+  public void mapping_passes_failure() {
+    given(running = supplying(() -> {
+      throw runtimeException;
+    }));
+    given(supplier = running.map(returned -> otherObject).await());
+    when(() -> supplier.get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void mapping_catches_failure_of_function() {
+    given(running = supplying(() -> object));
+    given(supplier = running.map(returned -> {
+      throw runtimeException;
+    }).await());
+    when(() -> supplier.get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void aborting_mapped_aborts_running() {
+    given(running = supplying(() -> {
+      await(latch);
+      return object;
+    }));
+    given(running.map(returned -> otherObject).abort());
+    given(supplier = running.await());
+    when(() -> supplier.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void composes_runnings() {
+    given(running = supplying(() -> object));
+    when(running.compose(returned -> supplying(() -> otherObject)).await().get());
+    thenReturned(otherObject);
+  }
+
+  @Test
+  public void composing_passes_failure() {
+    given(running = supplying(() -> {
+      throw runtimeException;
+    }));
+    given(supplier = running.compose(returned -> supplying(() -> otherObject)).await());
+    when(() -> supplier.get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void aborting_composed_aborts_next_running() {
+    given(running = supplying(() -> object));
+    given(result = running.compose(returned -> otherRunning = supplying(() -> {
+      await(latch);
+      return otherObject;
+    })));
+    given(sleepSeconds(0.1));
+    given(result.abort());
+    given(supplier = otherRunning.await());
+    when(() -> supplier.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void implements_to_string() {
+    given(future = new CompletableFuture<>());
+    when(completing(future).toString());
+    thenReturned(format("completing(%s)", future));
+  }
+
+  @Test
+  public void checks_null_stage() {
+    when(() -> completing(null));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_running() {
+    when(() -> future(null));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_callback() {
+    given(running = supplying(() -> object));
+    when(() -> running.onComplete(null));
+    thenThrown(MokoshException.class);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new AbortException(e);
+    }
+  }
+}
@@ -16,7 +16,9 @@ import static org.testory.Testory.thenThrown;
 import static org.testory.Testory.when;
 import static org.testory.Testory.willReturn;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Supplier;
 
 import org.junit.After;
@@ -34,6 +36,8 @@ public class TestEntangling {
 
   private Running<?> running, runningA, runningB, runningC;
   private Supplier<?> result;
+  private Object object, otherObject;
+  private RuntimeException runtimeException;
   private List<Object> log;
 
   @Before
@@ -81,6 +85,30 @@ public class TestEntangling {
     thenCalled(log).add(2);
   }
 
+  @Test
+  public void calls_back_when_all_completed() {
+    given(runningA = supplying(() -> {
+      sleepSeconds(0.1);
+      log.add(1);
+    }));
+    given(runningB = supplying(() -> log.add(2)));
+    given(running = entangle(runningA, runningB));
+    given(running.onComplete(result -> log.add(3)));
+    when(() -> sleepSeconds(0.2));
+    thenCalled(log).add(3);
+  }
+
+  @Test
+  public void awaiting_with_timeout_returns_empty_if_any_is_running() {
+    given(runningA = supplying(() -> {}));
+    given(runningB = supplying(() -> {
+      sleepSeconds(100);
+    }));
+    given(running = entangle(runningA, runningB));
+    when(running.await(Duration.ofMillis(100)));
+    thenReturned(Optional.empty());
+  }
+
   @Test
   public void awaiting_is_abortable() {
     given(running = entangle(supplying(() -> {
@@ -137,21 +165,58 @@ public class TestEntangling {
 
   @Test
   public void result_is_from_first() {
+    given(runningA = supplying(() -> object));
+    given(runningB = supplying(() -> otherObject));
     given(running = entangle(runningA, runningB));
-    given(willReturn(result), runningA).await();
-    when(running.await());
-    thenReturned(result);
+    when(running.await().get());
+    thenReturned(object);
   }
 
   @Test
   public void result_is_null_for_list() {
+    given(runningA = supplying(() -> object));
+    given(runningB = supplying(() -> otherObject));
     given(running = entangle(asList(runningA, runningB)));
-    given(willReturn(result), runningA).await();
-    given(willReturn(result), runningB).await();
     when(running.await().get());
     thenReturned(null);
   }
 
+  @Test
+  public void empty_list_is_completed() {
+    given(running = entangle(asList()));
+    when(running.await().get());
+    thenReturned(null);
+  }
+
+  @Test
+  public void result_is_first_failure() {
+    given(runningA = supplying(() -> {
+      sleepSeconds(100);
+    }));
+    given(runningB = supplying(() -> {
+      throw runtimeException;
+    }));
+    given(running = entangle(runningA, runningB));
+    given(result = running.await());
+    when(() -> result.get());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void failure_aborts_others() {
+    given(runningA = supplying(() -> {
+      sleepSeconds(100);
+    }));
+    given(runningB = supplying(() -> {
+      throw runtimeException;
+    }));
+    given(running = entangle(runningA, runningB));
+    given(running.await());
+    given(result = runningA.await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
   @Test
   public void is_running_if_first_is_running() {
     given(willReturn(true), runningA).isRunning();
@@ -0,0 +1,148 @@
+package com.perunlabs.mokosh.running;
+
+import static com.perunlabs.mokosh.running.RunningRegistry.runningRegistry;
+import static com.perunlabs.mokosh.running.Supplying.threadPerExecution;
+import static com.perunlabs.mokosh.running.Supplying.using;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.when;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+public class TestRunningRegistry {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private RunningRegistry registry;
+  private Supplying supplying;
+  private Running<?> running;
+  private CountDownLatch latch;
+  private RuntimeException runtimeException;
+
+  @Before
+  public void before() {
+    givenTest(this);
+    given(registry = runningRegistry());
+    given(supplying = threadPerExecution().listening(registry));
+    given(latch = new CountDownLatch(1));
+  }
+
+  @After
+  public void after() {
+    running.abort();
+  }
+
+  @Test
+  public void counts_completed() {
+    given(running = supplying.supply(() -> {}));
+    given(running.await());
+    given(sleepSeconds(0.1));
+    when(asList(registry.getCreated(), registry.getStarted(), registry.getCompleted()));
+    thenReturned(asList(1L, 1L, 1L));
+  }
+
+  @Test
+  public void counts_failed() {
+    given(running = supplying.supply(() -> {
+      throw runtimeException;
+    }));
+    given(running.await());
+    given(sleepSeconds(0.1));
+    when(registry.getFailed());
+    thenReturned(1L);
+  }
+
+  @Test
+  public void counts_rejected_as_failed_and_not_queued() {
+    given(supplying = using(runnable -> {
+      throw new RejectedExecutionException();
+    }).listening(registry));
+    given(() -> {
+      try {
+        supplying.supply(() -> {});
+      } catch (RejectedExecutionException e) {}
+    });
+    when(asList(registry.getFailed(), registry.getQueued()));
+    thenReturned(asList(1L, 0L));
+  }
+
+  @Test
+  public void counts_aborted() {
+    given(running = supplying.supply(() -> {
+      sleepSeconds(100);
+    }));
+    given(running.abort().await());
+    given(sleepSeconds(0.1));
+    when(registry.getAborted());
+    thenReturned(1L);
+  }
+
+  @Test
+  public void counts_running() {
+    given(running = supplying.supply(() -> {
+      sleepSeconds(100);
+    }));
+    given(sleepSeconds(0.1));
+    when(registry.getRunning());
+    thenReturned(1L);
+  }
+
+  @Test
+  public void does_not_count_finished_as_running() {
+    given(running = supplying.supply(() -> {}));
+    given(running.await());
+    given(sleepSeconds(0.1));
+    when(registry.getRunning());
+    thenReturned(0L);
+  }
+
+  @Test
+  public void counts_queued() {
+    given(running = Supplying.using(runnable -> {}).listening(registry).supply(() -> {}));
+    when(registry.getQueued());
+    thenReturned(1L);
+  }
+
+  @Test
+  public void reports_slowest() {
+    given(running = supplying.supply(() -> "slow", () -> {
+      sleepSeconds(0.2);
+    }));
+    given(running.await());
+    given(running = supplying.supply(() -> "fast", () -> {}));
+    given(running.await());
+    given(sleepSeconds(0.1));
+    when(registry.getSlowest());
+    thenReturned(contains(startsWith("slow"), startsWith("fast")));
+  }
+
+  @Test
+  public void registers_mbean() throws Exception {
+    given(registry.registerMBean("test"));
+    given(running = supplying.supply(() -> {}));
+    given(running.await());
+    given(sleepSeconds(0.1));
+    when(ManagementFactory.getPlatformMBeanServer().getAttribute(
+        new ObjectName("com.perunlabs.mokosh:type=RunningRegistry,name=\"test\""),
+        "Completed"));
+    thenReturned(1L);
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+        new ObjectName("com.perunlabs.mokosh:type=RunningRegistry,name=\"test\""));
+  }
+}
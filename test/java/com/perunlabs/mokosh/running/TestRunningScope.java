@@ -0,0 +1,215 @@
+package com.perunlabs.mokosh.running;
+
+import static com.perunlabs.mokosh.running.RunningScope.scope;
+import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.running.Supplying.using;
+import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.given;
+import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenCalled;
+import static org.testory.Testory.thenReturned;
+import static org.testory.Testory.thenThrown;
+import static org.testory.Testory.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import com.perunlabs.mokosh.AbortException;
+import com.perunlabs.mokosh.MokoshException;
+
+public class TestRunningScope {
+  @Rule
+  public final Timeout timeout = seconds(1);
+
+  private RunningScope scope, otherScope;
+  private Supplying supplying;
+  private Running<?> running, otherRunning;
+  private Supplier<?> result;
+  private RuntimeException runtimeException;
+  private List<Object> log;
+
+  @Before
+  public void before() {
+    givenTest(this);
+  }
+
+  @After
+  public void after() {
+    running.abort();
+    otherRunning.abort();
+  }
+
+  @Test
+  public void close_awaits_all() {
+    given(scope = scope());
+    given(running = supplying(() -> {
+      sleepSeconds(0.1);
+      log.add(1);
+    }));
+    given(otherRunning = supplying(() -> {
+      sleepSeconds(0.1);
+      log.add(2);
+    }));
+    when(() -> scope.close());
+    thenCalled(log).add(1);
+    thenCalled(log).add(2);
+  }
+
+  @Test
+  public void close_returns_after_rejected_supply() {
+    given(scope = scope());
+    given(supplying = using(runnable -> {
+      throw new RejectedExecutionException();
+    }));
+    given(() -> {
+      try {
+        supplying.supply(() -> {});
+      } catch (RejectedExecutionException e) {}
+    });
+    when(() -> scope.close());
+    thenReturned();
+  }
+
+  @Test
+  public void close_awaits_runnings_started_by_runnings() {
+    given(scope = scope());
+    given(running = supplying(() -> {
+      supplying(() -> {
+        sleepSeconds(0.1);
+        log.add(1);
+      });
+    }));
+    when(() -> scope.close());
+    thenCalled(log).add(1);
+  }
+
+  @Test
+  public void close_throws_first_failure() {
+    given(scope = scope());
+    given(running = supplying(() -> {
+      throw runtimeException;
+    }));
+    when(() -> scope.close());
+    thenThrown(runtimeException);
+  }
+
+  @Test
+  public void failure_aborts_others() {
+    given(scope = scope());
+    given(running = supplying(() -> {
+      sleepSeconds(100);
+    }));
+    given(otherRunning = supplying(() -> {
+      throw runtimeException;
+    }));
+    given(() -> {
+      try {
+        scope.close();
+      } catch (RuntimeException e) {}
+    });
+    given(result = running.await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void close_throws_if_timeout_elapsed() {
+    given(scope = scope(Duration.ofMillis(100)));
+    given(running = supplying(() -> {
+      sleepSeconds(100);
+    }));
+    when(() -> scope.close());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void timeout_aborts_all() {
+    given(scope = scope(Duration.ofMillis(100)));
+    given(running = supplying(() -> {
+      sleepSeconds(100);
+    }));
+    given(() -> {
+      try {
+        scope.close();
+      } catch (AbortException e) {}
+    });
+    given(result = running.await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void close_is_abortable() {
+    given(scope = scope());
+    given(running = supplying(() -> {
+      sleepSeconds(100);
+    }));
+    given(interruptMeAfterSeconds(0.1));
+    when(() -> scope.close());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void aborts_all() {
+    given(scope = scope());
+    given(running = supplying(() -> {
+      sleepSeconds(100);
+    }));
+    given(scope.abort());
+    given(result = running.await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void does_not_own_runnings_started_after_close() {
+    given(scope = scope());
+    given(() -> scope.close());
+    given(running = supplying(() -> {
+      sleepSeconds(0.1);
+      return "completed";
+    }));
+    when(running.await().get());
+    thenReturned("completed");
+  }
+
+  @Test
+  public void nested_scope_does_not_await_for_parent() {
+    given(scope = scope());
+    given(running = supplying(() -> {
+      sleepSeconds(100);
+    }));
+    given(otherScope = scope());
+    when(() -> otherScope.close());
+    thenReturned();
+    given(scope.abort());
+  }
+
+  @Test
+  public void checks_closing_of_not_current_scope() {
+    given(scope = scope());
+    given(otherScope = scope());
+    when(() -> scope.close());
+    thenThrown(MokoshException.class);
+    given(() -> {
+      otherScope.close();
+      scope.close();
+    });
+  }
+
+  @Test
+  public void checks_null_timeout() {
+    when(() -> scope(null));
+    thenThrown(MokoshException.class);
+  }
+}
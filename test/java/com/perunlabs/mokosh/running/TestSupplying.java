@@ -1,15 +1,26 @@
 package com.perunlabs.mokosh.running;
 
 import static com.perunlabs.mokosh.running.Supplying.supplying;
+import static com.perunlabs.mokosh.running.Supplying.using;
+import static com.perunlabs.mokosh.testing.Testing.sleepSeconds;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 import static org.junit.rules.Timeout.seconds;
+import static org.testory.Testory.any;
 import static org.testory.Testory.given;
 import static org.testory.Testory.givenTest;
+import static org.testory.Testory.thenCalled;
+import static org.testory.Testory.thenCalledNever;
 import static org.testory.Testory.thenReturned;
 import static org.testory.Testory.thenThrown;
 import static org.testory.Testory.when;
 
+import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 
 import org.junit.After;
@@ -31,16 +42,23 @@ public class TestSupplying {
   private Supplier<?> result;
   private CountDownLatch latch;
   private Thread thread;
+  private ExecutorService pool;
+  private Supplying defaultSupplying;
+  private RunningListener listener;
 
   @Before
   public void before() {
     givenTest(this);
+    defaultSupplying = Supplying.getDefault();
+    pool = newSingleThreadExecutor();
   }
 
   @After
   public void after() {
     running.abort();
     otherRunning.abort();
+    pool.shutdownNow();
+    Supplying.setDefault(defaultSupplying);
   }
 
   @Test
@@ -108,6 +126,52 @@ public class TestSupplying {
     thenReturned();
   }
 
+  @Test
+  public void awaits_with_timeout_completion() {
+    given(running = supplying(() -> object));
+    when(running.await(Duration.ofSeconds(1)).get().get());
+    thenReturned(object);
+  }
+
+  @Test
+  public void awaiting_with_timeout_returns_empty_if_not_completed() {
+    given(latch = new CountDownLatch(1));
+    given(running = supplying(() -> await(latch)));
+    when(running.await(Duration.ofMillis(100)));
+    thenReturned(Optional.empty());
+  }
+
+  @Test
+  public void aborts_after_timeout() {
+    given(latch = new CountDownLatch(1));
+    given(running = supplying(() -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        throw new AbortException(e);
+      }
+    }).abortAfter(Duration.ofMillis(100)));
+    given(result = running.await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void aborting_after_timeout_has_no_effect_if_completed() {
+    given(running = supplying(() -> object));
+    given(running.await());
+    given(running.abortAfter(Duration.ZERO));
+    when(running.await().get());
+    thenReturned(object);
+  }
+
+  @Test
+  public void checks_null_timeout() {
+    given(running = supplying(() -> object));
+    when(() -> running.await(null));
+    thenThrown(MokoshException.class);
+  }
+
   @Test
   public void is_running() {
     given(latch = new CountDownLatch(1));
@@ -169,6 +233,183 @@ public class TestSupplying {
     thenReturned(startsWith(Thread.currentThread().getName() + "-"));
   }
 
+  @Test
+  public void runs_using_executor() {
+    given(running = using(runnable -> new Thread(runnable, "executor").start())
+        .supply(() -> Thread.currentThread().getName()));
+    when(running.await().get());
+    thenReturned("executor");
+  }
+
+  @Test
+  public void runs_using_default() {
+    given(() -> Supplying.setDefault(using(runnable -> new Thread(runnable, "default").start())));
+    when(supplying(() -> Thread.currentThread().getName()).await().get());
+    thenReturned("default");
+  }
+
+  @Test
+  public void aborts_if_running_in_pool() {
+    given(latch = new CountDownLatch(1));
+    given(running = using(pool).supply(() -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        throw new AbortException(e);
+      }
+    }));
+    given(sleepSeconds(0.1));
+    given(result = running.abort().await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void aborting_does_not_leave_pool_thread_interrupted() {
+    given(latch = new CountDownLatch(1));
+    given(running = using(pool).supply(() -> await(latch)));
+    given(sleepSeconds(0.1));
+    given(running.abort().await());
+    when(using(pool).supply(() -> Thread.currentThread().isInterrupted()).await().get());
+    thenReturned(false);
+  }
+
+  @Test
+  public void aborts_if_not_started() {
+    given(running = using(runnable -> {}).supply(() -> object));
+    given(result = running.abort().await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void completion_callback_of_abort_can_use_running_from_other_thread() {
+    given(running = using(runnable -> {}).supply(() -> object));
+    given(running.onComplete(result -> {
+      join(thread = start(new Thread(() -> running.abort())));
+    }));
+    when(() -> running.abort());
+    thenReturned();
+  }
+
+  @Test
+  public void aborted_before_start_is_not_running() {
+    given(running = using(runnable -> {}).supply(() -> object));
+    given(running.abort());
+    when(running.isRunning());
+    thenReturned(false);
+  }
+
+  @Test
+  public void not_started_is_running() {
+    given(running = using(runnable -> {}).supply(() -> object));
+    when(running.isRunning());
+    thenReturned(true);
+  }
+
+  @Test
+  public void runs_in_virtual_thread() {
+    assumeTrue(supportsVirtualThreads());
+    given(running = Supplying.virtualThreadPerExecution()
+        .supply(() -> Thread.currentThread().getName()));
+    when(running.await().get());
+    thenReturned(startsWith(Thread.currentThread().getName() + "-"));
+  }
+
+  @Test
+  public void aborts_if_running_in_virtual_thread() {
+    assumeTrue(supportsVirtualThreads());
+    given(latch = new CountDownLatch(1));
+    given(running = Supplying.virtualThreadPerExecution().supply(() -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        throw new AbortException(e);
+      }
+    }));
+    given(result = running.abort().await());
+    when(() -> result.get());
+    thenThrown(AbortException.class);
+  }
+
+  @Test
+  public void virtual_threads_require_support() {
+    assumeFalse(supportsVirtualThreads());
+    when(() -> Supplying.virtualThreadPerExecution());
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void notifies_listener_about_completion() {
+    given(running = using(pool).listening(listener).supply(() -> object));
+    when(running.await());
+    thenCalled(listener).created(any(RunningEvent.class));
+    thenCalled(listener).started(any(RunningEvent.class));
+    thenCalled(listener).completed(any(RunningEvent.class));
+  }
+
+  @Test
+  public void notifies_listener_about_failure() {
+    given(running = using(pool).listening(listener).supply(() -> {
+      throw runtimeException;
+    }));
+    when(running.await());
+    thenCalled(listener).failed(any(RunningEvent.class), runtimeException);
+    thenCalledNever(listener).completed(any(RunningEvent.class));
+  }
+
+  @Test
+  public void notifies_listener_about_abort_before_start() {
+    given(running = using(runnable -> {}).listening(listener).supply(() -> object));
+    when(running.abort());
+    thenCalled(listener).aborted(any(RunningEvent.class));
+    thenCalledNever(listener).started(any(RunningEvent.class));
+  }
+
+  @Test
+  public void listener_failure_does_not_break_running() {
+    given(running = using(pool)
+        .listening(new RunningListener() {
+          public void started(RunningEvent event) {
+            throw new RuntimeException();
+          }
+        })
+        .supply(() -> object));
+    when(running.await().get());
+    thenReturned(object);
+  }
+
+  @Test
+  public void implements_to_string_with_description() {
+    given(running = supplying(() -> "description", () -> object));
+    when(running.toString());
+    thenReturned("description");
+  }
+
+  @Test
+  public void checks_null_listener() {
+    when(() -> using(pool).listening(null));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_description() {
+    when(() -> supplying((Supplier<String>) null, () -> object));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_executor() {
+    when(() -> using(null));
+    thenThrown(MokoshException.class);
+  }
+
+  @Test
+  public void checks_null_default() {
+    when(() -> Supplying.setDefault(null));
+    thenThrown(MokoshException.class);
+  }
+
   @Test
   public void checks_null_supplier() {
     when(() -> supplying((Supplier<Object>) null));
@@ -181,6 +422,15 @@ public class TestSupplying {
     thenThrown(MokoshException.class);
   }
 
+  private static boolean supportsVirtualThreads() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
   private static Thread start(Thread thread) {
     thread.setUncaughtExceptionHandler((t, e) -> {});
     thread.start();
@@ -194,4 +444,12 @@ public class TestSupplying {
       throw new RuntimeException();
     }
   }
+
+  private static void join(Thread thread) {
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      throw new RuntimeException();
+    }
+  }
 }
@@ -1,7 +1,9 @@
 package com.perunlabs.mokosh.streaming;
 
+import static com.perunlabs.mokosh.running.Completing.future;
 import static com.perunlabs.mokosh.streaming.Command.command;
 import static com.perunlabs.mokosh.streaming.Processing.processing;
+import static com.perunlabs.mokosh.testing.Testing.causedBy;
 import static com.perunlabs.mokosh.testing.Testing.interruptMeAfterSeconds;
 import static com.perunlabs.mokosh.testing.Testing.readAllBytes;
 import static com.perunlabs.mokosh.testing.Testing.withMessage;
@@ -27,6 +29,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 import org.junit.Before;
@@ -50,6 +55,7 @@ public class TestProcessing {
   private InputStream stdin;
   private ByteArrayOutputStream stderr;
   private File file;
+  private CompletableFuture<Void> future;
 
   @Before
   public void before() {
@@ -121,6 +127,29 @@ public class TestProcessing {
     then(!processing.isRunning());
   }
 
+  @Test
+  public void calls_back_with_exit_status() {
+    given(processing = processing(command("cat", "abcdefg")));
+    given(future = future(processing));
+    when(() -> future.join());
+    thenThrown(causedBy(withMessage(equalTo("exit status = 1"))));
+  }
+
+  @Test
+  public void awaiting_with_timeout_returns_empty_if_process_is_running() {
+    given(processing = processing(command("sleep", "10")));
+    when(processing.await(Duration.ofMillis(100)));
+    thenReturned(Optional.empty());
+  }
+
+  @Test
+  public void aborts_after_timeout() {
+    given(processing = processing(command("sleep", "0.5")));
+    given(processing.abortAfter(Duration.ofMillis(100)));
+    when(() -> processing.await().get());
+    thenThrown(withMessage(equalTo("exit status = 143")));
+  }
+
   @Test
   public void awaiting_is_abortable() {
     given(processing = processing(command("sleep", "1")));